@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.EchoPIP;
+import org.demo.SimpleFunctionLibrary;
+import org.demo.pdp.BatchPolicyDecisionPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+
+/**
+ * Compares deciding a list of subscriptions with the
+ * {@link BatchPolicyDecisionPoint} to deciding the same subscriptions as one
+ * {@link MultiAuthorizationSubscription} with {@code decideAll}. One operation
+ * decides the whole batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class BatchPDPBenchmark {
+
+	@Param({ "1", "10", "100", "500" })
+	private int batchSize;
+
+	private EmbeddedPolicyDecisionPoint pdp;
+
+	private BatchPolicyDecisionPoint batchPdp;
+
+	private List<AuthorizationSubscription> subscriptions;
+
+	private MultiAuthorizationSubscription multiSubscription;
+
+	@Setup
+	public void setup() throws Exception {
+		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
+				List.of(new SimpleFunctionLibrary()));
+		batchPdp = new BatchPolicyDecisionPoint(pdp);
+		subscriptions = new ArrayList<>(batchSize);
+		multiSubscription = new MultiAuthorizationSubscription();
+		for (int i = 0; i < batchSize; i++) {
+			var action = i % 2 == 0 ? "read" : "write";
+			subscriptions.add(AuthorizationSubscription.of("willi", action, "something" + i));
+			multiSubscription.addAuthorizationSubscription("sub" + i, "willi", action, "something" + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		pdp.dispose();
+	}
+
+	@Benchmark
+	public AuthorizationDecision[] batch() {
+		return batchPdp.decide(subscriptions).block();
+	}
+
+	@Benchmark
+	public MultiAuthorizationDecision multiAll() {
+		return pdp.decideAll(multiSubscription).blockFirst();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.EchoPIP;
+import org.demo.SimpleFunctionLibrary;
+import org.demo.pdp.CachingPolicyDecisionPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares blocking one-shot decisions with and without the
+ * {@link CachingPolicyDecisionPoint}. The benchmark cycles through a number of
+ * distinct subscriptions. With a fixed cache size, the number of distinct
+ * subscriptions determines the hit rate: all of them fit into the cache for
+ * small values, while the largest value mostly produces misses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class CachingPDPBenchmark {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CachingPDPBenchmark.class);
+
+	private static final long CACHE_SIZE = 10_000L;
+
+	@Param({ "1", "1000", "100000" })
+	private int distinctSubscriptions;
+
+	private EmbeddedPolicyDecisionPoint pdp;
+
+	private CachingPolicyDecisionPoint cachingPdp;
+
+	private AuthorizationSubscription[] subscriptions;
+
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
+				List.of(new SimpleFunctionLibrary()));
+		cachingPdp = new CachingPolicyDecisionPoint(pdp, CACHE_SIZE, Duration.ofMinutes(10), Flux.never());
+		subscriptions = new AuthorizationSubscription[distinctSubscriptions];
+		for (int i = 0; i < distinctSubscriptions; i++) {
+			subscriptions[i] = AuthorizationSubscription.of("willi", "read", "something-" + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		LOG.info("Hit rate with {} distinct subscriptions: {}", distinctSubscriptions,
+				cachingPdp.stats().hitRate());
+		cachingPdp.dispose();
+		pdp.dispose();
+	}
+
+	@Benchmark
+	public AuthorizationDecision uncached() {
+		return pdp.decide(nextSubscription()).blockFirst();
+	}
+
+	@Benchmark
+	public AuthorizationDecision cached() {
+		return cachingPdp.decide(nextSubscription()).blockFirst();
+	}
+
+	private AuthorizationSubscription nextSubscription() {
+		next = (next + 1) % distinctSubscriptions;
+		return subscriptions[next];
+	}
+
+}
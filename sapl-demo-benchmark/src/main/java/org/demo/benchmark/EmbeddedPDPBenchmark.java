@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.EchoPIP;
+import org.demo.SimpleFunctionLibrary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+
+/**
+ * JMH counterpart of the performance demos in {@code EmbeddedPDPDemo}. Each
+ * benchmark method uses one of the four invocation styles of the demo against
+ * the bundled policies, the {@link EchoPIP} and the
+ * {@link SimpleFunctionLibrary}. Results are reported both as throughput and as
+ * average time per decision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class EmbeddedPDPBenchmark {
+
+	private static final String SUBJECT = "willi";
+	private static final String ACTION_READ = "read";
+	private static final String RESOURCE = "something";
+	private static final AuthorizationSubscription READ_SUBSCRIPTION = AuthorizationSubscription.of(SUBJECT,
+			ACTION_READ, RESOURCE);
+
+	private EmbeddedPolicyDecisionPoint pdp;
+
+	private MultiAuthorizationSubscription multiSubscription;
+
+	@Setup
+	public void setup() throws Exception {
+		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
+				List.of(new SimpleFunctionLibrary()));
+		multiSubscription = new MultiAuthorizationSubscription();
+		multiSubscription.addAuthorizationSubscription("read", SUBJECT, ACTION_READ, RESOURCE);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pdp.dispose();
+	}
+
+	/**
+	 * Equivalent of {@code runPerformanceDemoSingleBlocking}.
+	 */
+	@Benchmark
+	public AuthorizationDecision singleBlocking() {
+		return pdp.decide(READ_SUBSCRIPTION).blockFirst();
+	}
+
+	/**
+	 * Equivalent of {@code runPerformanceDemoSingleSequentialReactive}. The
+	 * decision is handed to the black hole to prevent dead-code elimination.
+	 */
+	@Benchmark
+	public void singleSequentialReactive(Blackhole blackhole) {
+		pdp.decide(READ_SUBSCRIPTION).take(1).subscribe(blackhole::consume);
+	}
+
+	/**
+	 * Equivalent of {@code runPerformanceDemoMulti}.
+	 */
+	@Benchmark
+	public void multi(Blackhole blackhole) {
+		pdp.decide(multiSubscription).take(1).subscribe(blackhole::consume);
+	}
+
+	/**
+	 * Equivalent of {@code runPerformanceDemoMultiAll}.
+	 */
+	@Benchmark
+	public void multiAll(Blackhole blackhole) {
+		pdp.decideAll(multiSubscription).take(1).subscribe(blackhole::consume);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.EchoPIP;
+import org.demo.SimpleFunctionLibrary;
+import org.demo.functions.FunctionMemoizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+
+/**
+ * Compares blocking one-shot decisions with and without memoization of the
+ * pure functions of the {@link SimpleFunctionLibrary}. The read subscription is
+ * evaluated by {@code policy_1.sapl}, which calls {@code append} twice per
+ * decision with constant arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class FunctionMemoizationBenchmark {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FunctionMemoizationBenchmark.class);
+
+	private static final long MEMO_SIZE = 1_000L;
+
+	private static final AuthorizationSubscription READ_SUBSCRIPTION = AuthorizationSubscription.of("willi",
+			"read", "something");
+
+	@Param({ "false", "true" })
+	private boolean memoized;
+
+	private FunctionMemoizer memoizer;
+
+	private EmbeddedPolicyDecisionPoint pdp;
+
+	@Setup
+	public void setup() throws Exception {
+		memoizer = memoized ? FunctionMemoizer.forLibrary(SimpleFunctionLibrary.class, MEMO_SIZE)
+				: FunctionMemoizer.disabled();
+		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
+				List.of(new SimpleFunctionLibrary(memoizer)));
+	}
+
+	@TearDown
+	public void tearDown() {
+		LOG.info("Memo hit rate: {}", memoizer.stats().hitRate());
+		pdp.dispose();
+	}
+
+	@Benchmark
+	public AuthorizationDecision decide() {
+		return pdp.decide(READ_SUBSCRIPTION).blockFirst();
+	}
+
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.EchoPIP;
+import org.demo.SimpleFunctionLibrary;
+import org.demo.pdp.ParallelMultiPolicyDecisionPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+
+/**
+ * Compares the sequential evaluation of multi-subscriptions by the embedded PDP
+ * with the {@link ParallelMultiPolicyDecisionPoint} for different numbers of
+ * entries. One operation waits for the decisions of all entries, either as one
+ * {@link MultiAuthorizationDecision} or as one identifiable decision per
+ * entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class ParallelMultiPDPBenchmark {
+
+	@Param({ "1", "10", "100", "1000" })
+	private int entries;
+
+	private EmbeddedPolicyDecisionPoint pdp;
+
+	private ParallelMultiPolicyDecisionPoint parallelPdp;
+
+	private MultiAuthorizationSubscription multiSubscription;
+
+	@Setup
+	public void setup() throws Exception {
+		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
+				List.of(new SimpleFunctionLibrary()));
+		parallelPdp = new ParallelMultiPolicyDecisionPoint(pdp);
+		multiSubscription = new MultiAuthorizationSubscription();
+		for (int i = 0; i < entries; i++) {
+			var action = i % 2 == 0 ? "read" : "write";
+			multiSubscription.addAuthorizationSubscription("sub" + i, "willi", action, "something" + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		pdp.dispose();
+	}
+
+	@Benchmark
+	public MultiAuthorizationDecision sequentialDecideAll() {
+		return pdp.decideAll(multiSubscription).blockFirst();
+	}
+
+	@Benchmark
+	public MultiAuthorizationDecision parallelDecideAll() {
+		return parallelPdp.decideAll(multiSubscription).blockFirst();
+	}
+
+	@Benchmark
+	public IdentifiableAuthorizationDecision sequentialDecide() {
+		return pdp.decide(multiSubscription).take(entries).blockLast();
+	}
+
+	@Benchmark
+	public IdentifiableAuthorizationDecision parallelDecide() {
+		return parallelPdp.decide(multiSubscription).take(entries).blockLast();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.demo.RegexFunctionLibrary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.sapl.api.functions.FunctionException;
+import io.sapl.api.interpreter.Val;
+
+/**
+ * Compares the {@link RegexFunctionLibrary}, which keeps compiled patterns in
+ * a cache, with compiling the pattern on every evaluation. The patterns are
+ * those used by the demo policies, {@code some.+}, and by the repository
+ * policies of the Spring demos, {@code ^update.*}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class RegexBenchmark {
+
+	@Param({ "some.+", "^update.*" })
+	private String regex;
+
+	private RegexFunctionLibrary library;
+
+	private Val regexValue;
+
+	private Val value;
+
+	@Setup
+	public void setup() {
+		library = new RegexFunctionLibrary();
+		regexValue = Val.of(regex);
+		value = Val.of(regex.startsWith("^") ? "updateBook" : "something");
+	}
+
+	@Benchmark
+	public Val cachedMatches() throws FunctionException {
+		return library.matches(value, regexValue);
+	}
+
+	@Benchmark
+	public Val cachedFind() throws FunctionException {
+		return library.find(value, regexValue);
+	}
+
+	@Benchmark
+	public Val recompiledMatches() {
+		return Val.of(Pattern.compile(regexValue.get().asText()).matcher(value.get().asText()).matches());
+	}
+
+	@Benchmark
+	public Val recompiledFind() {
+		return Val.of(Pattern.compile(regexValue.get().asText()).matcher(value.get().asText()).find());
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.demo.wire.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares the cost of encoding and decoding decisions in the
+ * {@link WireFormat}s of the remote demo. The small decision is a plain
+ * {@code PERMIT}. The large decision carries a transformed resource of patient
+ * records, like those of the MVC demo, and an obligation. The payload size of
+ * each combination is logged on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class WireFormatBenchmark {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WireFormatBenchmark.class);
+
+	private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+	private static final int PATIENTS = 100;
+
+	@Param({ "JSON", "CBOR", "SMILE" })
+	private WireFormat format;
+
+	@Param({ "small", "large" })
+	private String decisionSize;
+
+	private JsonNode decision;
+
+	private byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		decision = "small".equals(decisionSize) ? smallDecision() : largeDecision();
+		encoded = format.mapper().writeValueAsBytes(decision);
+		LOG.info("Payload size of {} decision in {}: {} bytes", decisionSize, format, encoded.length);
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return format.frame(decision);
+	}
+
+	@Benchmark
+	public JsonNode decode() throws IOException {
+		return format.decode(encoded);
+	}
+
+	private static JsonNode smallDecision() {
+		return JSON.objectNode().put("decision", "PERMIT");
+	}
+
+	private static JsonNode largeDecision() {
+		var patients = JSON.arrayNode();
+		for (int i = 0; i < PATIENTS; i++) {
+			patients.add(patient(i));
+		}
+		var obligation = JSON.objectNode().put("type", "logAccess").put("message",
+				"Patient records accessed by the attending doctor");
+		var json = JSON.objectNode();
+		json.put("decision", "PERMIT");
+		json.set("resource", patients);
+		json.set("obligations", JSON.arrayNode().add(obligation));
+		return json;
+	}
+
+	private static ObjectNode patient(int id) {
+		var patient = JSON.objectNode();
+		patient.put("id", id);
+		patient.put("medicalRecordNumber", String.format("MRN-%08d", id));
+		patient.put("name", "Patient " + id);
+		patient.put("icd11Code", "ca0" + (id % 10) + ".XX");
+		patient.put("diagnosisText", "XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX");
+		patient.put("attendingDoctor", "Dr. A. Doctor");
+		patient.put("attendingNurse", "N. Nurse");
+		patient.put("phoneNumber", "+49 123 456" + id);
+		patient.put("roomNumber", "A." + (100 + id % 50));
+		patient.put("heightCm", 150.0D + id % 50);
+		patient.put("weightKg", 50.5D + id % 40);
+		patient.put("insured", id % 3 != 0);
+		return patient;
+	}
+
+}
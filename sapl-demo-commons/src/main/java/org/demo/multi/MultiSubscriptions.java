@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.multi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decides the entries of a multi-subscription as single subscriptions, for PDP
+ * decorators which evaluate or transport the entries independently of each
+ * other.
+ * 
+ * All entries stay subscribed, so updates of any entry are emitted as they
+ * occur. {@code decideAll} emits a {@link MultiAuthorizationDecision} as soon
+ * as every entry is decided and again whenever a decision changes.
+ */
+public final class MultiSubscriptions {
+
+	private MultiSubscriptions() {
+		// utility class
+	}
+
+	/**
+	 * @param multiAuthzSubscription the multi-subscription.
+	 * @param decide decides a single entry.
+	 * @return the decisions of all entries, tagged with their IDs.
+	 */
+	public static Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription,
+			Function<AuthorizationSubscription, Flux<AuthorizationDecision>> decide) {
+		var entries = entries(multiAuthzSubscription, decide);
+		if (entries.isEmpty()) {
+			return Flux.empty();
+		}
+		return Flux.merge(Flux.fromIterable(entries), entries.size());
+	}
+
+	/**
+	 * @param multiAuthzSubscription the multi-subscription.
+	 * @param decide decides a single entry.
+	 * @return the latest decisions of all entries, once every entry is decided.
+	 */
+	public static Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription,
+			Function<AuthorizationSubscription, Flux<AuthorizationDecision>> decide) {
+		var entries = entries(multiAuthzSubscription, decide);
+		if (entries.isEmpty()) {
+			return Flux.just(new MultiAuthorizationDecision());
+		}
+		return Flux.combineLatest(entries, decisions -> {
+			var multiDecision = new MultiAuthorizationDecision();
+			for (var decision : decisions) {
+				var identifiable = (IdentifiableAuthorizationDecision) decision;
+				multiDecision.setAuthorizationDecisionForSubscriptionWithId(
+						identifiable.getAuthorizationSubscriptionId(), identifiable.getAuthorizationDecision());
+			}
+			return multiDecision;
+		});
+	}
+
+	private static List<Flux<IdentifiableAuthorizationDecision>> entries(
+			MultiAuthorizationSubscription multiAuthzSubscription,
+			Function<AuthorizationSubscription, Flux<AuthorizationDecision>> decide) {
+		List<Flux<IdentifiableAuthorizationDecision>> entries = new ArrayList<>();
+		for (var entry : multiAuthzSubscription) {
+			var id = entry.getAuthorizationSubscriptionId();
+			entries.add(decide.apply(entry.getAuthorizationSubscription())
+					.map(decision -> new IdentifiableAuthorizationDecision(id, decision)));
+		}
+		return entries;
+	}
+
+}
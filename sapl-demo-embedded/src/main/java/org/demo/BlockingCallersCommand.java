@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+import static org.demo.EmbeddedPDPDemo.WRITE_SUBSCRIPTION;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.HdrHistogram.Recorder;
+import org.demo.pdp.BlockingPolicyDecisionPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Runs many concurrent blocking callers, each deciding a number of
+ * subscriptions one after the other, once with the
+ * {@link BlockingPolicyDecisionPoint} and once with {@code .blockFirst()}.
+ * 
+ * The callers run on virtual threads if the JVM provides them (Java 21 or
+ * later). As the demo is compiled for Java 11, the executor is looked up
+ * reflectively, and on older JVMs a fixed pool of platform threads is used
+ * instead, i.e., only as many callers as pool threads are concurrent.
+ */
+@Command(name = "blocking-callers", description = "Measures blocking one-shot decisions from many concurrent callers, on virtual threads if available.")
+public class BlockingCallersCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BlockingCallersCommand.class);
+
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final Method VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-callers" }, description = "Number of concurrent callers. Defaults to 100000.")
+	private int callers = 100_000;
+
+	@Option(names = { "-decisions" }, description = "Number of decisions per caller. Defaults to 10.")
+	private int decisionsPerCaller = 10;
+
+	@Option(names = { "-platform-threads" }, description = "Size of the thread pool if virtual threads are not available. Defaults to 256.")
+	private int platformThreads = 256;
+
+	@Override
+	public Integer call() throws Exception {
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		var blockingPdp = new BlockingPolicyDecisionPoint(pdp);
+		if (VIRTUAL_THREAD_EXECUTOR == null) {
+			LOGGER.warn("Virtual threads are not available, using {} platform threads", platformThreads);
+		}
+		try {
+			// warm up both variants with the same load
+			run(null, blockingPdp::decideOnce);
+			run(null, subscription -> pdp.decide(subscription).blockFirst());
+			run("Blocking Facade Results:", blockingPdp::decideOnce);
+			run(".blockFirst() Results:", subscription -> pdp.decide(subscription).blockFirst());
+		} finally {
+			pdp.dispose();
+		}
+		return 0;
+	}
+
+	private void run(String title, Function<AuthorizationSubscription, AuthorizationDecision> decideOnce)
+			throws InterruptedException, ReflectiveOperationException {
+		var recorder = new Recorder(HISTOGRAM_PRECISION);
+		var finished = new CountDownLatch(callers);
+		var executor = newExecutor();
+		long start = System.nanoTime();
+		for (int caller = 0; caller < callers; caller++) {
+			executor.execute(() -> {
+				try {
+					for (int i = 0; i < decisionsPerCaller; i++) {
+						long begin = System.nanoTime();
+						decideOnce.apply(i % 2 == 0 ? READ_SUBSCRIPTION : WRITE_SUBSCRIPTION);
+						recorder.recordValue(System.nanoTime() - begin);
+					}
+				} finally {
+					finished.countDown();
+				}
+			});
+		}
+		finished.await();
+		long end = System.nanoTime();
+		executor.shutdown();
+		if (title != null) {
+			LatencyReport.log(LOGGER, title, recorder.getIntervalHistogram(), (end - start) / 1_000_000_000.0D);
+		}
+	}
+
+	private static Method virtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private ExecutorService newExecutor() throws ReflectiveOperationException {
+		if (VIRTUAL_THREAD_EXECUTOR == null) {
+			return Executors.newFixedThreadPool(platformThreads);
+		}
+		return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.demo.results.BenchmarkReport;
+import org.demo.results.BenchmarkReports;
+import org.demo.results.BenchmarkResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Compares two result files written by the performance demos, e.g., before and
+ * after upgrading the SAPL version. A scenario regresses if its throughput
+ * dropped or its 99th percentile latency rose by more than the threshold. The
+ * change of the allocated bytes per decision is reported for information. If
+ * any scenario regresses, the command exits with status 1, so it can be used
+ * as a performance gate in a build pipeline.
+ */
+@Command(name = "compare", description = "Compares two result files of the performance demos and fails if a scenario regressed by more than a threshold.")
+public class CompareResultsCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompareResultsCommand.class);
+
+	@Parameters(index = "0", description = "The result file of the baseline.")
+	private Path baselineFile;
+
+	@Parameters(index = "1", description = "The result file of the candidate.")
+	private Path candidateFile;
+
+	@Option(names = { "-t",
+			"-threshold" }, description = "Tolerated regression in percent. Defaults to 10.")
+	private double thresholdPercent = 10.0D;
+
+	@Override
+	public Integer call() throws Exception {
+		BenchmarkReport baseline = BenchmarkReports.read(baselineFile);
+		BenchmarkReport candidate = BenchmarkReports.read(candidateFile);
+		LOGGER.info("Baseline : Java {} {}", baseline.getJavaVersion(), baseline.getGarbageCollectors());
+		LOGGER.info("Candidate: Java {} {}", candidate.getJavaVersion(), candidate.getGarbageCollectors());
+
+		Map<String, BenchmarkResult> baselineResults = baseline.getResults().stream()
+				.collect(Collectors.toMap(BenchmarkResult::getScenario, Function.identity(), (a, b) -> b));
+		int regressions = 0;
+		for (var result : candidate.getResults()) {
+			var reference = baselineResults.get(result.getScenario());
+			if (reference == null) {
+				LOGGER.info("{}: not part of the baseline", result.getScenario());
+				continue;
+			}
+			// a negative change of the throughput and a positive change of the latency
+			// are regressions
+			double throughputChange = change(reference.getThroughput(), result.getThroughput());
+			double p99Change = change(reference.getP99Ms(), result.getP99Ms());
+			double allocationChange = change(reference.getAllocatedBytesPerDecision(),
+					result.getAllocatedBytesPerDecision());
+			boolean regressed = -throughputChange > thresholdPercent || p99Change > thresholdPercent;
+			if (regressed) {
+				regressions++;
+			}
+			LOGGER.info(String.format(Locale.ROOT, "%-24s throughput %+7.1f %%  p99 %+7.1f %%  alloc. %+7.1f %%  %s",
+					result.getScenario(), throughputChange, p99Change, allocationChange,
+					regressed ? "REGRESSION" : "ok"));
+		}
+		if (regressions > 0) {
+			LOGGER.error("{} scenario(s) regressed by more than {} %.", regressions, thresholdPercent);
+			return 1;
+		}
+		LOGGER.info("No scenario regressed by more than {} %.", thresholdPercent);
+		return 0;
+	}
+
+	private static double change(double reference, double value) {
+		if (reference == 0.0D) {
+			return 0.0D;
+		}
+		return (value - reference) / reference * 100.0D;
+	}
+
+}
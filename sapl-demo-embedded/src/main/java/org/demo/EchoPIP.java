@@ -1,5 +1,6 @@
 package org.demo;
 
+import java.time.Duration;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -11,14 +12,32 @@
 import reactor.core.publisher.Flux;
 
 /**
- * A simple non-streaming PIP echoing its input. *
+ * A simple non-streaming PIP echoing its input. For testing the behavior with
+ * slow PIPs, the echo can be delayed.
  */
 @PolicyInformationPoint(name = "echo", description = "PIP echoing the input value")
 public class EchoPIP {
 
+	private final Duration delay;
+
+	public EchoPIP() {
+		this(Duration.ZERO);
+	}
+
+	/**
+	 * Creates a new {@code EchoPIP} emitting the echo after the given delay.
+	 * @param delay the delay of the echo.
+	 */
+	public EchoPIP(Duration delay) {
+		this.delay = delay;
+	}
+
 	@Attribute(name = "echo")
 	public Flux<Val> echo(@Text Val value, Map<String, JsonNode> variables) {
-		return Flux.just(value);
+		if (delay.isZero()) {
+			return Flux.just(value);
+		}
+		return Flux.just(value).delayElements(delay);
 	}
 
 }
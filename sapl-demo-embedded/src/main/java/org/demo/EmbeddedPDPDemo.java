@@ -15,10 +15,22 @@
  ******************************************************************************/
 package org.demo;
 
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.demo.functions.FunctionMemoizer;
+import org.demo.pdp.AsyncPolicyDecisionPoint;
+import org.demo.pdp.BatchPolicyDecisionPoint;
+import org.demo.pdp.BlockingPolicyDecisionPoint;
+import org.demo.pdp.CachingPolicyDecisionPoint;
+import org.demo.pdp.ParallelMultiPolicyDecisionPoint;
+import org.demo.pdp.PolicyStoreWatcher;
+import org.demo.results.BenchmarkReports;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +43,7 @@
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import reactor.core.publisher.Flux;
 
 /**
  * This demo shows how to manually construct a PDP without infrastructure
@@ -40,27 +53,47 @@
  */
 @Command(description = "This demo shows how to manually construct a PDP without infrastructure support. "
 		+ "A Custom Policy Information Point and Function Library are bound to the PDP. "
-		+ "The demo runs a few performance tests and illustrates different ways of invoking the PDP.")
+		+ "The demo runs a few performance tests and illustrates different ways of invoking the PDP. "
+		+ "The sub-commands provide additional measurements.", subcommands = { LoadGeneratorCommand.class,
+				ScalingBenchmarkCommand.class, StartupCommand.class, PolicyStoreWatchCommand.class,
+				CompareResultsCommand.class, StreamingBenchmarkCommand.class, ProfileCommand.class,
+				SharedStreamsCommand.class, BlockingCallersCommand.class,
+				ReplayCommand.class, FootprintCommand.class, WarmUpCommand.class })
 public class EmbeddedPDPDemo implements Callable<Integer> {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddedPDPDemo.class);
 
 	@Option(names = { "-p",
-			"-path" }, description = "Path to the folder in the filesystem where the demo will look for the configuration file 'pdp.json' and the '*.sapl' policy documents. Deafults to '~/sapl/policies'")
-	private String path = "~/sapl/policies";
-
-	private static final String SUBJECT = "willi";
-	private static final String ACTION_READ = "read";
-	private static final String ACTION_WRITE = "write";
-	private static final String RESOURCE = "something";
-	private static final AuthorizationSubscription READ_SUBSCRIPTION = AuthorizationSubscription.of(SUBJECT,
+			"-path" }, description = "Path to the folder in the filesystem where the demo will look for the configuration file 'pdp.json' and the '*.sapl' policy documents, e.g. '~/sapl/policies'. If omitted, the policies bundled with the demo are used.")
+	private String path;
+
+	@Option(names = { "-r",
+			"-results" }, description = "Optional file the results of the performance demos are written to. Files ending with '.csv' are written as CSV, all others as JSON.")
+	private Path resultsFile;
+
+	@Option(names = {
+			"-profile" }, description = "Optional directory the allocations of each performance demo are recorded to as JDK Flight Recorder files.")
+	private Path profileDirectory;
+
+	@Option(names = {
+			"-memoize" }, description = "Memoize the results of the pure functions of the SimpleFunctionLibrary.")
+	private boolean memoize;
+
+	static final String SUBJECT = "willi";
+	static final String ACTION_READ = "read";
+	static final String ACTION_WRITE = "write";
+	static final String RESOURCE = "something";
+	static final AuthorizationSubscription READ_SUBSCRIPTION = AuthorizationSubscription.of(SUBJECT,
 			ACTION_READ, RESOURCE);
-	private static final AuthorizationSubscription WRITE_SUBSCRIPTION = AuthorizationSubscription.of(SUBJECT,
+	static final AuthorizationSubscription WRITE_SUBSCRIPTION = AuthorizationSubscription.of(SUBJECT,
 			ACTION_WRITE, RESOURCE);
 
 	private static final int RUNS = 20_000;
-	private static final double BILLION = 1_000_000_000.0D;
-	private static final double MILLION = 1_000_000.0D;
+	private static final int BATCH_SIZE = 500;
+	private static final int BATCH_RUNS = RUNS / BATCH_SIZE;
+	private static final long CACHE_SIZE = 10_000L;
+	private static final Duration CACHE_TTL = Duration.ofSeconds(10);
+	private static final long MEMO_SIZE = 1_000L;
 	private static final DecimalFormat decFormat = new DecimalFormat("#.####");
 
 	public static void main(String... args) {
@@ -69,34 +102,99 @@ public static void main(String... args) {
 
 	@Override
 	public Integer call() throws Exception {
-		// A PDP is constructed using the factory pattern
-		// register the custom PIP and function library
-		EmbeddedPolicyDecisionPoint pdp;
-		if (path != null) {
-			pdp = PolicyDecisionPointFactory.filesystemPolicyDecisionPoint(path, List.of(new EchoPIP()),
-					List.of(new SimpleFunctionLibrary()));
-		}
-		// by default the policies are loaded from bundled resources.
-		pdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(new EchoPIP()),
-				List.of(new SimpleFunctionLibrary()));
+		EmbeddedPolicyDecisionPoint pdp = newPolicyDecisionPoint();
 
 		blockingUsageDemo(pdp);
 
+		facadeUsageDemo(pdp);
+
 		reactiveUsageDemo(pdp);
 
-		runPerformanceDemoSingleBlocking(pdp);
+		var runner = new ScenarioRunner(
+				profileDirectory != null ? new JfrAllocationProfiler(profileDirectory) : ScenarioProfiler.NONE);
+
+		runPerformanceDemoSingleBlocking(pdp, runner);
+
+		runPerformanceDemoSingleSequentialReactive(pdp, runner);
+
+		runPerformanceDemoMulti(pdp, runner);
+
+		runPerformanceDemoMultiAll(pdp, runner);
+
+		runPerformanceDemoCachedBlocking(pdp, policyStoreChanges(), runner);
 
-		runPerformanceDemoSingleSequentialReactive(pdp);
+		runPerformanceDemoBatchMultiAll(pdp, runner);
 
-		runPerformanceDemoMulti(pdp);
+		runPerformanceDemoParallelBatchMultiAll(pdp, runner);
 
-		runPerformanceDemoMultiAll(pdp);
+		runPerformanceDemoBatch(pdp, runner);
+
+		runner.logAllocationSummary();
+
+		if (resultsFile != null) {
+			BenchmarkReports.write(runner.report(), resultsFile);
+			LOGGER.info("Results written to {}", resultsFile);
+		}
 
 		LOGGER.info("End of demo.");
 		pdp.dispose();
 		return 0;
 	}
 
+	/**
+	 * A PDP is constructed using the factory pattern. The custom PIP and function
+	 * library are registered with the PDP. If a path is given, the policies are
+	 * loaded from the filesystem and the PDP monitors the directory for changes.
+	 * By default the policies are loaded from bundled resources.
+	 */
+	EmbeddedPolicyDecisionPoint newPolicyDecisionPoint() throws Exception {
+		return newPolicyDecisionPoint(List.of(new EchoPIP()), functionLibraries());
+	}
+
+	/**
+	 * @return new instances of the custom function libraries of the demo. The
+	 * pure functions are only memoized if requested, so the results stay
+	 * comparable with runs measuring the function bodies.
+	 */
+	Collection<Object> functionLibraries() {
+		var simple = memoize
+				? new SimpleFunctionLibrary(FunctionMemoizer.forLibrary(SimpleFunctionLibrary.class, MEMO_SIZE))
+				: new SimpleFunctionLibrary();
+		return List.of(simple, new RegexFunctionLibrary());
+	}
+
+	EmbeddedPolicyDecisionPoint newPolicyDecisionPoint(Collection<Object> policyInformationPoints,
+			Collection<Object> functionLibraries) throws Exception {
+		if (path != null) {
+			return PolicyDecisionPointFactory.filesystemPolicyDecisionPoint(policyPath().toString(),
+					policyInformationPoints, functionLibraries);
+		}
+		return PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(policyInformationPoints, functionLibraries);
+	}
+
+	/**
+	 * @return the directory of the filesystem policy store or {@code null}, if the
+	 * bundled policies are used. A leading '~' is expanded to the home directory
+	 * of the user.
+	 */
+	Path policyPath() {
+		if (path == null) {
+			return null;
+		}
+		if (path.startsWith("~")) {
+			return Path.of(System.getProperty("user.home") + path.substring(1));
+		}
+		return Path.of(path);
+	}
+
+	/**
+	 * @return the changes of the filesystem policy store. The bundled policies
+	 * never change.
+	 */
+	Flux<?> policyStoreChanges() {
+		return path != null ? PolicyStoreWatcher.watch(policyPath()) : Flux.never();
+	}
+
 	/**
 	 * If traditional blocking behavior is required, use .blockFirst() this is not
 	 * applicable in multi-threaded environments, e.g. web application. The reactor
@@ -110,6 +208,20 @@ private static void blockingUsageDemo(PolicyDecisionPoint pdp) {
 		LOGGER.info("Decision for action 'write': {}", writeDecision != null ? writeDecision.getDecision() : "null");
 	}
 
+	/**
+	 * Callers which do not use Reactor, e.g., services running on virtual
+	 * threads, can use the blocking facade, or the asynchronous facade returning
+	 * a CompletableFuture.
+	 */
+	private static void facadeUsageDemo(PolicyDecisionPoint pdp) {
+		LOGGER.info("Single blocking decision by using BlockingPolicyDecisionPoint.decideOnce()...");
+		final BlockingPolicyDecisionPoint blockingPdp = new BlockingPolicyDecisionPoint(pdp);
+		LOGGER.info("Decision for action 'read': {}", blockingPdp.decideOnce(READ_SUBSCRIPTION).getDecision());
+		LOGGER.info("Single asynchronous decision by using AsyncPolicyDecisionPoint.decideOnce()...");
+		new AsyncPolicyDecisionPoint(pdp).decideOnce(WRITE_SUBSCRIPTION)
+				.thenAccept(authzDecision -> handleAuthorizationDecision(ACTION_WRITE, authzDecision)).join();
+	}
+
 	/**
 	 * If only one result is required, the appropriate way to consume exactly one
 	 * decision event is to use .take(1) and subscribe accordingly. In this demo
@@ -128,90 +240,87 @@ private static void handleAuthorizationDecision(String action, AuthorizationDeci
 		LOGGER.info("Decision for action '{}': {}", action, authzDecision.getDecision());
 	}
 
-	private static void runPerformanceDemoSingleBlocking(PolicyDecisionPoint pdp) {
+	private static void runPerformanceDemoSingleBlocking(PolicyDecisionPoint pdp, ScenarioRunner runner) {
 		LOGGER.info("Performance using sequential .blockFirst()");
-
-		LOGGER.info("Warming up...");
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(READ_SUBSCRIPTION).blockFirst();
-		}
-		LOGGER.info("Measuring...");
-		long start = System.nanoTime();
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(READ_SUBSCRIPTION).blockFirst();
-		}
-		long end = System.nanoTime();
-		logResults("Single Blocking Results:", RUNS, start, end);
+		runner.run("single-blocking", "Single Blocking Results:", RUNS, 1,
+				() -> pdp.decide(READ_SUBSCRIPTION).blockFirst());
 	}
 
-	private static void runPerformanceDemoSingleSequentialReactive(PolicyDecisionPoint pdp) {
+	private static void runPerformanceDemoSingleSequentialReactive(PolicyDecisionPoint pdp, ScenarioRunner runner) {
 		LOGGER.info("Performance using sequential .take(1)");
-
-		LOGGER.info("Warming up...");
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(READ_SUBSCRIPTION).take(1).subscribe();
-		}
-		LOGGER.info("Measuring...");
-
-		long start = System.nanoTime();
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(READ_SUBSCRIPTION).take(1).subscribe();
-		}
-		long end = System.nanoTime();
-		logResults("Single Reactive Results:", RUNS, start, end);
+		runner.run("single-reactive", "Single Reactive Results:", RUNS, 1,
+				() -> pdp.decide(READ_SUBSCRIPTION).take(1).subscribe());
 	}
 
-	protected static void runPerformanceDemoMulti(PolicyDecisionPoint pdp) {
+	protected static void runPerformanceDemoMulti(PolicyDecisionPoint pdp, ScenarioRunner runner) {
 		LOGGER.info("Performance Multi...");
 
 		final MultiAuthorizationSubscription multiSubscription = new MultiAuthorizationSubscription();
 		multiSubscription.addAuthorizationSubscription("sub", SUBJECT, ACTION_READ, RESOURCE);
 
-		LOGGER.info("Warming up...");
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(multiSubscription).take(1).subscribe();
-		}
-		LOGGER.info("Measuring...");
-
-		long start = System.nanoTime();
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decide(multiSubscription).take(1).subscribe();
-		}
-		long end = System.nanoTime();
-		logResults("MultiAuthorizationSubscription decide Results:", RUNS, start, end);
+		runner.run("multi", "MultiAuthorizationSubscription decide Results:", RUNS, 1,
+				() -> pdp.decide(multiSubscription).take(1).subscribe());
 	}
 
-	protected static void runPerformanceDemoMultiAll(PolicyDecisionPoint pdp) {
+	protected static void runPerformanceDemoMultiAll(PolicyDecisionPoint pdp, ScenarioRunner runner) {
 		LOGGER.info("Performance Multi All...");
 
 		final MultiAuthorizationSubscription multiSubscription = new MultiAuthorizationSubscription();
 		multiSubscription.addAuthorizationSubscription("read", SUBJECT, ACTION_READ, RESOURCE);
-		LOGGER.info("Warming up...");
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decideAll(multiSubscription).take(1).subscribe();
-		}
-		LOGGER.info("Measuring...");
-		long start = System.nanoTime();
-		for (int i = 0; i < RUNS; i++) {
-			pdp.decideAll(multiSubscription).take(1).subscribe();
-		}
-		long end = System.nanoTime();
-		logResults("MultiAuthorizationSubscription decideAll Results:", RUNS, start, end);
+
+		runner.run("multi-all", "MultiAuthorizationSubscription decideAll Results:", RUNS, 1,
+				() -> pdp.decideAll(multiSubscription).take(1).subscribe());
 	}
 
-	private static double nanoToMs(double nanoseconds) {
-		return nanoseconds / MILLION;
+	private static void runPerformanceDemoCachedBlocking(PolicyDecisionPoint pdp, Flux<?> policyStoreChanges,
+			ScenarioRunner runner) {
+		LOGGER.info("Performance using sequential .blockFirst() with a decision cache");
+
+		// All cached decisions are dropped whenever the policy store changes. The
+		// bundled policies never change, i.e., entries only expire after their TTL.
+		var cachingPdp = new CachingPolicyDecisionPoint(pdp, CACHE_SIZE, CACHE_TTL, policyStoreChanges);
+		runner.run("cached-single-blocking", "Cached Single Blocking Results:", RUNS, 1,
+				() -> cachingPdp.decide(READ_SUBSCRIPTION).blockFirst());
+		LOGGER.info("Hit rate: {}", decFormat.format(cachingPdp.stats().hitRate()));
+		cachingPdp.dispose();
 	}
 
-	private static double nanoToS(double nanoseconds) {
-		return nanoseconds / BILLION;
+	private static void runPerformanceDemoBatchMultiAll(PolicyDecisionPoint pdp, ScenarioRunner runner) {
+		LOGGER.info("Performance Multi All with {} subscriptions...", BATCH_SIZE);
+
+		final MultiAuthorizationSubscription multiSubscription = new MultiAuthorizationSubscription();
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			multiSubscription.addAuthorizationSubscription("sub" + i, SUBJECT, i % 2 == 0 ? ACTION_READ : ACTION_WRITE,
+					RESOURCE + i);
+		}
+		runner.run("multi-all-batch", "MultiAuthorizationSubscription decideAll Batch Results:", BATCH_RUNS,
+				BATCH_SIZE, () -> pdp.decideAll(multiSubscription).blockFirst());
 	}
 
-	private static void logResults(String title, int runs, long start, long end) {
-		LOGGER.info(title);
-		LOGGER.info("Runs  : {}", runs);
-		LOGGER.info("Total : {} s", decFormat.format(nanoToS((double) end - start)));
-		LOGGER.info("Avg.  : {} ms", decFormat.format(nanoToMs(((double) end - start) / RUNS)));
+	private static void runPerformanceDemoParallelBatchMultiAll(PolicyDecisionPoint pdp, ScenarioRunner runner) {
+		LOGGER.info("Performance parallel Multi All with {} subscriptions...", BATCH_SIZE);
+
+		// the entries are evaluated on the parallel scheduler, i.e., on all cores
+		final ParallelMultiPolicyDecisionPoint parallelPdp = new ParallelMultiPolicyDecisionPoint(pdp);
+		final MultiAuthorizationSubscription multiSubscription = new MultiAuthorizationSubscription();
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			multiSubscription.addAuthorizationSubscription("sub" + i, SUBJECT, i % 2 == 0 ? ACTION_READ : ACTION_WRITE,
+					RESOURCE + i);
+		}
+		runner.run("parallel-multi-all-batch", "Parallel MultiAuthorizationSubscription decideAll Batch Results:",
+				BATCH_RUNS, BATCH_SIZE, () -> parallelPdp.decideAll(multiSubscription).blockFirst());
+	}
+
+	private static void runPerformanceDemoBatch(PolicyDecisionPoint pdp, ScenarioRunner runner) {
+		LOGGER.info("Performance Batch with {} subscriptions...", BATCH_SIZE);
+
+		final List<AuthorizationSubscription> subscriptions = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			subscriptions.add(AuthorizationSubscription.of(SUBJECT, i % 2 == 0 ? ACTION_READ : ACTION_WRITE,
+					RESOURCE + i));
+		}
+		final BatchPolicyDecisionPoint batchPdp = new BatchPolicyDecisionPoint(pdp);
+		runner.run("batch", "Batch Results:", BATCH_RUNS, BATCH_SIZE, () -> batchPdp.decide(subscriptions).block());
 	}
 
 }
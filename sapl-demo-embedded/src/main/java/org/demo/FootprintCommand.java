@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import reactor.core.Disposable;
+
+/**
+ * Measures the resources held by long-lived streaming subscriptions, as kept
+ * open by policy enforcement points for the lifetime of a session.
+ * 
+ * For each number of subscriptions, distinct read subscriptions are opened
+ * against the policies of the demo and kept open until all of them received
+ * their first decision. The retained heap per subscription is the growth of
+ * the used heap after garbage collection, the thread count is read before and
+ * while the subscriptions are open. Optionally, a class histogram shows which
+ * objects make up the retained heap. Finally, all subscriptions are cancelled
+ * and the heap left over is reported, which reveals leaks.
+ */
+@Command(name = "footprint", description = "Reports retained heap, threads and setup/teardown rates for many open streaming subscriptions.")
+public class FootprintCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FootprintCommand.class);
+
+	private static final double BILLION = 1_000_000_000.0D;
+	private static final int HISTOGRAM_CLASSES = 15;
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-subscriptions" }, split = ",", description = "Numbers of open subscriptions. Defaults to 1000,10000,50000.")
+	private List<Integer> subscriptionCounts = List.of(1_000, 10_000, 50_000);
+
+	@Option(names = { "-histogram" }, description = "Log the classes contributing most to the retained heap.")
+	private boolean histogram;
+
+	@Option(names = { "-timeout" }, description = "Seconds to wait for the first decision of all subscriptions. Defaults to 120.")
+	private int timeoutSeconds = 120;
+
+	@Override
+	public Integer call() throws Exception {
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		try {
+			// open and close a few subscriptions, so classes and caches are
+			// initialized before the first measurement
+			measure(pdp, Math.min(1_000, subscriptionCounts.get(0)), false);
+			for (int subscriptionCount : subscriptionCounts) {
+				measure(pdp, subscriptionCount, true);
+			}
+		} finally {
+			pdp.dispose();
+		}
+		return 0;
+	}
+
+	private void measure(PolicyDecisionPoint pdp, int subscriptionCount, boolean report) throws Exception {
+		var threads = ManagementFactory.getThreadMXBean();
+		long heapBefore = ResourceProbe.usedHeapAfterGc();
+		int threadsBefore = threads.getThreadCount();
+		HeapHistogram histogramBefore = report && histogram ? HeapHistogram.take() : null;
+
+		var firstDecisions = new CountDownLatch(subscriptionCount);
+		List<Disposable> subscriptions = new ArrayList<>(subscriptionCount);
+		long setupStart = System.nanoTime();
+		for (int i = 0; i < subscriptionCount; i++) {
+			var received = new AtomicBoolean();
+			var authzSubscription = AuthorizationSubscription.of(EmbeddedPDPDemo.SUBJECT, EmbeddedPDPDemo.ACTION_READ,
+					"something-" + i);
+			subscriptions.add(pdp.decide(authzSubscription).subscribe(decision -> {
+				if (received.compareAndSet(false, true)) {
+					firstDecisions.countDown();
+				}
+			}));
+		}
+		boolean complete = firstDecisions.await(timeoutSeconds, TimeUnit.SECONDS);
+		long setupNanos = System.nanoTime() - setupStart;
+		int threadsOpen = threads.getThreadCount();
+		long heapOpen = ResourceProbe.usedHeapAfterGc();
+		HeapHistogram histogramOpen = histogramBefore != null ? HeapHistogram.take() : null;
+
+		long teardownStart = System.nanoTime();
+		subscriptions.forEach(Disposable::dispose);
+		long teardownNanos = System.nanoTime() - teardownStart;
+		subscriptions.clear();
+		long heapAfter = ResourceProbe.usedHeapAfterGc();
+
+		if (!report) {
+			return;
+		}
+		if (!complete) {
+			LOGGER.warn("Only {} of {} subscriptions received a decision within {} s",
+					subscriptionCount - firstDecisions.getCount(), subscriptionCount, timeoutSeconds);
+		}
+		long retained = heapOpen - heapBefore;
+		LOGGER.info("Footprint Results for {} open subscriptions:", subscriptionCount);
+		LOGGER.info("Retained heap : {} KiB, {} bytes per subscription", retained / 1024, retained / subscriptionCount);
+		LOGGER.info("Threads       : {} before, {} while open", threadsBefore, threadsOpen);
+		LOGGER.info("Setup         : {} subscriptions/s", Math.round(subscriptionCount * BILLION / setupNanos));
+		LOGGER.info("Teardown      : {} subscriptions/s", Math.round(subscriptionCount * BILLION / teardownNanos));
+		LOGGER.info("Left over     : {} KiB after cancelling", (heapAfter - heapBefore) / 1024);
+		if (histogramOpen != null) {
+			histogramOpen.logGrowth(LOGGER, histogramBefore, HISTOGRAM_CLASSES, subscriptionCount);
+		}
+	}
+
+}
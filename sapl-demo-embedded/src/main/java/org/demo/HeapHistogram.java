@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+
+/**
+ * A class histogram of the live objects in the heap, as printed by
+ * {@code jcmd <pid> GC.class_histogram}. It is taken in-process through the
+ * DiagnosticCommand MBean of HotSpot, which triggers a full garbage collection.
+ */
+final class HeapHistogram {
+
+	private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+	private static final Pattern ROW = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+).*$");
+
+	private final Map<String, long[]> classes;
+
+	private HeapHistogram(Map<String, long[]> classes) {
+		this.classes = classes;
+	}
+
+	/**
+	 * Takes a histogram of the live objects.
+	 * @return the histogram.
+	 * @throws JMException if the JVM does not support the diagnostic command.
+	 */
+	static HeapHistogram take() throws JMException {
+		var output = (String) ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName(DIAGNOSTIC_COMMAND),
+				"gcClassHistogram", new Object[] { null }, new String[] { String[].class.getName() });
+		Map<String, long[]> classes = new HashMap<>();
+		for (var line : output.split("\\R")) {
+			var row = ROW.matcher(line);
+			if (row.matches()) {
+				classes.put(row.group(3), new long[] { Long.parseLong(row.group(1)), Long.parseLong(row.group(2)) });
+			}
+		}
+		return new HeapHistogram(classes);
+	}
+
+	/**
+	 * Logs the classes whose retained bytes grew most since the given histogram.
+	 * @param logger the logger.
+	 * @param before the earlier histogram.
+	 * @param top the number of classes to log.
+	 * @param perUnit the number of units, e.g., subscriptions, the growth is
+	 * divided by.
+	 */
+	void logGrowth(Logger logger, HeapHistogram before, int top, int perUnit) {
+		Map<String, long[]> growth = new HashMap<>();
+		classes.forEach((name, counts) -> {
+			var previous = before.classes.getOrDefault(name, new long[2]);
+			growth.put(name, new long[] { counts[0] - previous[0], counts[1] - previous[1] });
+		});
+		logger.info("{} classes with the largest growth (instances, bytes per unit):", top);
+		growth.entrySet().stream().sorted(Comparator.comparingLong(entry -> -entry.getValue()[1])).limit(top)
+				.forEach(entry -> logger.info("  {} : {} instances, {} bytes", entry.getKey(),
+						String.format("%.2f", (double) entry.getValue()[0] / perUnit),
+						String.format("%.1f", (double) entry.getValue()[1] / perUnit)));
+	}
+
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Recording;
+
+/**
+ * Records the allocations of each scenario with the JDK Flight Recorder. The
+ * allocation events are recorded with stack traces and written to
+ * '&lt;scenario&gt;.jfr' in the given directory. The recordings can be opened
+ * with JDK Mission Control or converted into allocation flame graphs, e.g., by
+ * the 'jfr2flame' converter of async-profiler.
+ */
+public class JfrAllocationProfiler implements ScenarioProfiler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JfrAllocationProfiler.class);
+
+	private static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+	private static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+
+	private final Path directory;
+
+	private Recording recording;
+
+	/**
+	 * Creates a new {@code JfrAllocationProfiler}.
+	 * @param directory the directory the recordings are written to.
+	 */
+	public JfrAllocationProfiler(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public void start(String scenario) {
+		recording = new Recording();
+		recording.setName(scenario);
+		recording.enable(ALLOCATION_IN_NEW_TLAB).withStackTrace();
+		recording.enable(ALLOCATION_OUTSIDE_TLAB).withStackTrace();
+		recording.start();
+	}
+
+	@Override
+	public void stop(String scenario) {
+		recording.stop();
+		try {
+			Files.createDirectories(directory);
+			var file = directory.resolve(scenario + ".jfr");
+			recording.dump(file);
+			LOGGER.info("Allocation profile written to {}", file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			recording.close();
+			recording = null;
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.text.DecimalFormat;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+
+/**
+ * Logs the latency distribution and throughput of a load run. Latencies are
+ * recorded in nanoseconds and reported in microseconds.
+ */
+public final class LatencyReport {
+
+	private static final double NANOS_PER_MICRO = 1_000.0D;
+	private static final DecimalFormat decFormat = new DecimalFormat("#.###");
+
+	private LatencyReport() {
+		// utility class
+	}
+
+	public static void log(Logger logger, String title, Histogram histogram, double seconds) {
+		logger.info(title);
+		logger.info("Decisions  : {}", histogram.getTotalCount());
+		logger.info("Throughput : {} decisions/s", decFormat.format(histogram.getTotalCount() / seconds));
+		logger.info("Mean       : {} us", decFormat.format(histogram.getMean() / NANOS_PER_MICRO));
+		logger.info("p50        : {} us", percentile(histogram, 50.0D));
+		logger.info("p90        : {} us", percentile(histogram, 90.0D));
+		logger.info("p99        : {} us", percentile(histogram, 99.0D));
+		logger.info("p99.9      : {} us", percentile(histogram, 99.9D));
+		logger.info("Max        : {} us", decFormat.format(histogram.getMaxValue() / NANOS_PER_MICRO));
+	}
+
+	private static String percentile(Histogram histogram, double percentile) {
+		return decFormat.format(histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO);
+	}
+
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.ACTION_READ;
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+import static org.demo.EmbeddedPDPDemo.RESOURCE;
+import static org.demo.EmbeddedPDPDemo.SUBJECT;
+import static org.demo.EmbeddedPDPDemo.WRITE_SUBSCRIPTION;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.demo.deadline.DeadlineAwareEchoPIP;
+import org.demo.deadline.DeadlineBudget;
+import org.demo.pdp.DeadlinePolicyDecisionPoint;
+import org.demo.pdp.RecordingPolicyDecisionPoint;
+import org.demo.recording.SubscriptionLogWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Drives the embedded PDP from many threads at once to expose contention that
+ * the sequential performance demos cannot show. Each worker thread draws the
+ * next kind of subscription from the configured mix, takes the first decision
+ * in a blocking fashion and records the latency in a shared histogram.
+ * 
+ * If a target rate is set, requests are issued at a fixed pace and latencies
+ * are measured from the intended start time of a request. Thus, a stalled PDP
+ * is not hidden by the load generator backing off (coordinated omission).
+ * 
+ * With a deadline, single subscriptions which are not decided within the
+ * budget are INDETERMINATE, and the misses are reported by action and by PIP
+ * attribute. Together with a delay of the echo PIP, this shows the behavior
+ * with a slow PIP.
+ */
+@Command(name = "load", description = "Runs a multi-threaded load test against the embedded PDP and reports latency percentiles and throughput.")
+public class LoadGeneratorCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoadGeneratorCommand.class);
+
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final double NANOS_PER_MICRO = 1_000.0D;
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	/**
+	 * The kinds of subscriptions the load generator can issue.
+	 */
+	enum Scenario {
+		READ, WRITE, MULTI
+	}
+
+	@Option(names = { "-t", "-threads" }, description = "Number of concurrent request threads. Defaults to 64.")
+	private int threads = 64;
+
+	@Option(names = { "-d",
+			"-duration" }, description = "Duration of the measurement in seconds. Defaults to 30.")
+	private int durationSeconds = 30;
+
+	@Option(names = { "-w",
+			"-warmup" }, description = "Duration of the warm-up phase in seconds, which is not measured. Defaults to 10.")
+	private int warmupSeconds = 10;
+
+	@Option(names = { "-r",
+			"-rate" }, description = "Target rate in decisions per second over all threads. 0 (default) issues requests as fast as possible.")
+	private int rate = 0;
+
+	@Option(names = { "-m",
+			"-mix" }, split = ",", description = "Relative weights of the subscription kinds, e.g. 'READ=80,WRITE=15,MULTI=5'. Defaults to READ only.")
+	private Map<Scenario, Integer> mix = new EnumMap<>(Map.of(Scenario.READ, 1));
+
+	@Option(names = { "-histogram" }, description = "Print the full latency distribution in microseconds.")
+	private boolean printHistogram;
+
+	@Option(names = { "-deadline" }, description = "Time budget of a decision in milliseconds, after which it is INDETERMINATE, e.g. 20. 0 (default) waits for the decision.")
+	private long deadlineMs = 0L;
+
+	@Option(names = { "-pip-delay" }, description = "Delay of the echo PIP in milliseconds for simulating a slow PIP. Defaults to 0.")
+	private long pipDelayMs = 0L;
+
+	@Option(names = { "-record" }, description = "Appends the subscriptions of the measurement to this subscription log for the 'replay' command.")
+	private Path recordFile;
+
+	private MultiAuthorizationSubscription multiSubscription;
+
+	private int mixTotal;
+
+	@Override
+	public Integer call() throws Exception {
+		mixTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+		if (threads < 1 || mixTotal < 1 || mix.values().stream().anyMatch(weight -> weight < 0)) {
+			LOGGER.error("At least one thread and a positive subscription mix are required.");
+			return 2;
+		}
+		multiSubscription = new MultiAuthorizationSubscription();
+		multiSubscription.addAuthorizationSubscription("read", SUBJECT, ACTION_READ, RESOURCE);
+
+		DeadlineBudget budget = deadlineMs > 0 ? new DeadlineBudget(Duration.ofMillis(deadlineMs)) : null;
+		var pipDelay = Duration.ofMillis(pipDelayMs);
+		EmbeddedPolicyDecisionPoint embeddedPdp = demo.newPolicyDecisionPoint(
+				List.of(budget != null ? new DeadlineAwareEchoPIP(pipDelay, budget) : new EchoPIP(pipDelay)),
+				demo.functionLibraries());
+		PolicyDecisionPoint pdp = budget != null ? new DeadlinePolicyDecisionPoint(embeddedPdp, budget) : embeddedPdp;
+
+		LOGGER.info("Load test with {} threads, mix {}, rate {}", threads, mix, rate > 0 ? rate + "/s" : "unlimited");
+		LOGGER.info("Warming up for {} s...", warmupSeconds);
+		runLoad(pdp, warmupSeconds, new Recorder(HISTOGRAM_PRECISION));
+		if (budget != null) {
+			budget.reset();
+		}
+
+		LOGGER.info("Measuring for {} s...", durationSeconds);
+		var recorder = new Recorder(HISTOGRAM_PRECISION);
+		SubscriptionLogWriter log = recordFile != null ? new SubscriptionLogWriter(recordFile) : null;
+		long start = System.nanoTime();
+		runLoad(log != null ? new RecordingPolicyDecisionPoint(pdp, log) : pdp, durationSeconds, recorder);
+		long end = System.nanoTime();
+		if (log != null) {
+			log.close();
+			LOGGER.info("Subscriptions recorded to {}", recordFile);
+		}
+
+		Histogram histogram = recorder.getIntervalHistogram();
+		LatencyReport.log(LOGGER, "Load Results:", histogram, (end - start) / 1_000_000_000.0D);
+		if (printHistogram) {
+			histogram.outputPercentileDistribution(System.out, NANOS_PER_MICRO);
+		}
+		if (budget != null) {
+			budget.log(LOGGER);
+		}
+		embeddedPdp.dispose();
+		return 0;
+	}
+
+	private void runLoad(PolicyDecisionPoint pdp, int seconds, Recorder recorder) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(threads) / rate : 0L;
+		var startSignal = new CountDownLatch(1);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		for (int i = 0; i < threads; i++) {
+			executor.execute(() -> {
+				try {
+					startSignal.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				generateLoad(pdp, deadline, intervalNanos, recorder);
+			});
+		}
+		startSignal.countDown();
+		executor.shutdown();
+		if (!executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS)) {
+			LOGGER.warn("Request threads did not finish in time.");
+			executor.shutdownNow();
+		}
+	}
+
+	private void generateLoad(PolicyDecisionPoint pdp, long deadline, long intervalNanos, Recorder recorder) {
+		long intendedStart = System.nanoTime();
+		while (intendedStart < deadline) {
+			if (intervalNanos > 0) {
+				long wait = intendedStart - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+			issueRequest(pdp, nextScenario());
+			long end = System.nanoTime();
+			recorder.recordValue(end - intendedStart);
+			intendedStart = intervalNanos > 0 ? intendedStart + intervalNanos : end;
+		}
+	}
+
+	private Scenario nextScenario() {
+		int pick = ThreadLocalRandom.current().nextInt(mixTotal);
+		for (var entry : mix.entrySet()) {
+			pick -= entry.getValue();
+			if (pick < 0) {
+				return entry.getKey();
+			}
+		}
+		return Scenario.READ;
+	}
+
+	private void issueRequest(PolicyDecisionPoint pdp, Scenario scenario) {
+		switch (scenario) {
+		case WRITE:
+			pdp.decide(WRITE_SUBSCRIPTION).blockFirst();
+			break;
+		case MULTI:
+			pdp.decideAll(multiSubscription).blockFirst();
+			break;
+		default:
+			pdp.decide(READ_SUBSCRIPTION).blockFirst();
+		}
+	}
+
+}
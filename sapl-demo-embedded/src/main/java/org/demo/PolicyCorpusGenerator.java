@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic policy stores for scaling experiments.
+ * 
+ * The documents are written to a new temporary directory together with a
+ * 'pdp.json' configuration. The target of each policy compares subject and
+ * action. A share of the documents given by the selectivity has a target
+ * matching the demo subscription (subject 'willi', action 'read'), all other
+ * targets reference a subject which never occurs. The condition depth is the
+ * number of statements in the where-block of each policy and a share of the
+ * policies given by the PIP usage additionally accesses the 'echo.echo'
+ * attribute of the {@link EchoPIP}.
+ * 
+ * The same seed always produces the same corpus.
+ */
+public class PolicyCorpusGenerator {
+
+	static final String PDP_CONFIGURATION = "{\n\t\"algorithm\": \"DENY_UNLESS_PERMIT\",\n\t\"variables\": {}\n}\n";
+
+	private final double selectivity;
+
+	private final int conditionDepth;
+
+	private final double pipUsage;
+
+	private final long seed;
+
+	/**
+	 * Creates a new {@code PolicyCorpusGenerator}.
+	 * @param selectivity share of the policies whose target matches the demo
+	 * subscription, between 0.0 and 1.0.
+	 * @param conditionDepth number of statements in the where-block of each
+	 * policy.
+	 * @param pipUsage share of the policies accessing the echo PIP, between 0.0
+	 * and 1.0.
+	 * @param seed the seed of the random generator distributing matching targets
+	 * and PIP access among the policies.
+	 */
+	public PolicyCorpusGenerator(double selectivity, int conditionDepth, double pipUsage, long seed) {
+		this.selectivity = selectivity;
+		this.conditionDepth = conditionDepth;
+		this.pipUsage = pipUsage;
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes a corpus of policy documents into a new temporary directory.
+	 * @param documents the number of policy documents to generate.
+	 * @return the directory containing the documents and the PDP configuration.
+	 * @throws IOException if the files cannot be written.
+	 */
+	public Path generate(int documents) throws IOException {
+		var random = new Random(seed);
+		var directory = Files.createTempDirectory("sapl-corpus-" + documents + "-");
+		Files.writeString(directory.resolve("pdp.json"), PDP_CONFIGURATION, StandardCharsets.UTF_8);
+		for (int i = 0; i < documents; i++) {
+			var matching = random.nextDouble() < selectivity;
+			var usesPip = random.nextDouble() < pipUsage;
+			Files.writeString(directory.resolve(String.format("policy_%06d.sapl", i)), policy(i, matching, usesPip),
+					StandardCharsets.UTF_8);
+		}
+		return directory;
+	}
+
+	private String policy(int index, boolean matching, boolean usesPip) {
+		var subject = matching ? EmbeddedPDPDemo.SUBJECT : "nobody" + index;
+		var builder = new StringBuilder();
+		builder.append("policy \"generated policy ").append(index).append("\"\n");
+		builder.append("permit\n");
+		builder.append("  subject == \"").append(subject).append("\" & action == \"")
+				.append(EmbeddedPDPDemo.ACTION_READ).append("\"\n");
+		if (conditionDepth > 0 || usesPip) {
+			builder.append("where\n");
+			for (int j = 0; j < conditionDepth; j++) {
+				builder.append("  resource != \"forbidden").append(j).append("\";\n");
+			}
+			if (usesPip) {
+				builder.append("  subject.<echo.echo> == \"").append(subject).append("\";\n");
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Deletes a generated corpus.
+	 * @param directory the directory returned by {@link #generate(int)}.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	public static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> {
+				try {
+					Files.delete(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.ACTION_READ;
+import static org.demo.EmbeddedPDPDemo.ACTION_WRITE;
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+import static org.demo.EmbeddedPDPDemo.WRITE_SUBSCRIPTION;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.demo.pdp.PolicyStoreChange;
+import org.demo.pdp.PolicyStoreWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import reactor.core.Disposable;
+
+/**
+ * Keeps decision streams open against a filesystem policy store and reports
+ * how long it takes until a change of a single policy document is reflected in
+ * the decisions.
+ * 
+ * The filesystem PDP monitors its directory on its own and applies added,
+ * modified and deleted documents to its index, i.e., the PDP is not rebuilt on
+ * a change. This command watches the same directory to timestamp each change.
+ * The open decision streams only report a decision if it differs from the
+ * previous one, so changes which do not affect the outcome stay silent.
+ */
+@Command(name = "watch", description = "Keeps decision streams open on the policy store given by -path and reports the reload latency of changed documents.")
+public class PolicyStoreWatchCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PolicyStoreWatchCommand.class);
+
+	private static final double MILLION = 1_000_000.0D;
+	private static final DecimalFormat decFormat = new DecimalFormat("#.###");
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-d",
+			"-duration" }, description = "Seconds to watch the policy store. 0 (default) watches until the demo is terminated.")
+	private int durationSeconds = 0;
+
+	@Override
+	public Integer call() throws Exception {
+		var directory = demo.policyPath();
+		if (directory == null) {
+			LOGGER.error("The 'watch' sub-command requires a policy store given by -path.");
+			return 2;
+		}
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		var lastChange = new AtomicReference<PolicyStoreChange>();
+		Disposable changes = PolicyStoreWatcher.watch(directory).subscribe(change -> {
+			LOGGER.info("Policy store change: {}", change);
+			lastChange.set(change);
+		});
+		Disposable readDecisions = observe(pdp, ACTION_READ, READ_SUBSCRIPTION, lastChange);
+		Disposable writeDecisions = observe(pdp, ACTION_WRITE, WRITE_SUBSCRIPTION, lastChange);
+
+		LOGGER.info("Watching {} ...", directory);
+		var terminated = new CountDownLatch(1);
+		if (durationSeconds > 0) {
+			terminated.await(durationSeconds, TimeUnit.SECONDS);
+		} else {
+			terminated.await();
+		}
+		readDecisions.dispose();
+		writeDecisions.dispose();
+		changes.dispose();
+		pdp.dispose();
+		return 0;
+	}
+
+	private static Disposable observe(PolicyDecisionPoint pdp, String action,
+			AuthorizationSubscription authzSubscription, AtomicReference<PolicyStoreChange> lastChange) {
+		return pdp.decide(authzSubscription).distinctUntilChanged().subscribe(authzDecision -> {
+			var change = lastChange.get();
+			if (change == null) {
+				LOGGER.info("Decision for action '{}': {}", action, authzDecision.getDecision());
+			} else {
+				LOGGER.info("Decision for action '{}': {} ({} ms after {})", action, authzDecision.getDecision(),
+						decFormat.format((System.nanoTime() - change.getTimestamp()) / MILLION), change);
+			}
+		});
+	}
+
+}
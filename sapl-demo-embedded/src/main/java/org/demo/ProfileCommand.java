@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+import static org.demo.EmbeddedPDPDemo.WRITE_SUBSCRIPTION;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.demo.profiling.EvaluationProfiler;
+import org.demo.profiling.PolicyDocumentVariants;
+import org.demo.profiling.PolicySources;
+import org.demo.profiling.ProfiledEchoPIP;
+import org.demo.profiling.ProfiledSimpleFunctionLibrary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Profiles where the evaluation time of the demo subscriptions is spent.
+ * 
+ * First, a load run against the policy store uses instrumented variants of the
+ * PIP and the function library, which record the time and number of every
+ * attribute access and function call.
+ * 
+ * Second, the cost of every policy and of every statement in its where-block is
+ * determined differentially: each policy document is split into truncated
+ * variants by {@link PolicyDocumentVariants}, every variant is measured alone
+ * and the difference to the previous variant is attributed to the added
+ * element. The target of a policy is measured against an empty policy store.
+ * Differences below the measurement noise may be reported as zero.
+ * 
+ * Both results are reported sorted by cumulative time.
+ */
+@Command(name = "profile", description = "Reports the cumulative evaluation time per policy, where-statement, attribute and function.")
+public class ProfileCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProfileCommand.class);
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-r", "-runs" }, description = "Number of measured decisions per run. Defaults to 20000.")
+	private int runs = 20_000;
+
+	@Override
+	public Integer call() throws Exception {
+		profileCalls();
+		profilePolicies();
+		return 0;
+	}
+
+	private void profileCalls() throws Exception {
+		LOGGER.info("Profiling attributes and functions...");
+		var profiler = new EvaluationProfiler();
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint(List.of(new ProfiledEchoPIP(profiler)),
+				List.of(new ProfiledSimpleFunctionLibrary(profiler)));
+		decide(pdp);
+		profiler.reset();
+		decide(pdp);
+		pdp.dispose();
+		profiler.report(LOGGER, "Attributes and functions (" + runs + " decisions):");
+	}
+
+	private void profilePolicies() throws Exception {
+		LOGGER.info("Profiling policies and statements...");
+		var profiler = new EvaluationProfiler();
+		long baseline = meanDecisionNanos(null);
+		for (var document : PolicySources.load(demo.policyPath()).entrySet()) {
+			var variants = PolicyDocumentVariants.of(document.getKey(), document.getValue());
+			if (variants.isEmpty()) {
+				LOGGER.info("Skipping policy set {}", document.getKey());
+				continue;
+			}
+			long previous = baseline;
+			for (var variant : variants) {
+				long mean = meanDecisionNanos(variant.getSource());
+				profiler.record(variant.getElement(), Math.max(0L, mean - previous) * runs, runs);
+				previous = mean;
+			}
+		}
+		profiler.report(LOGGER, "Policies and statements (" + runs + " decisions, differential):");
+	}
+
+	/**
+	 * Measures the mean time of a decision against a policy store holding only
+	 * the given document.
+	 */
+	private long meanDecisionNanos(String source) throws Exception {
+		var directory = Files.createTempDirectory("sapl-profile-");
+		try {
+			Files.writeString(directory.resolve("pdp.json"), PolicyCorpusGenerator.PDP_CONFIGURATION,
+					StandardCharsets.UTF_8);
+			if (source != null) {
+				Files.writeString(directory.resolve("profiled.sapl"), source, StandardCharsets.UTF_8);
+			}
+			EmbeddedPolicyDecisionPoint pdp = PolicyDecisionPointFactory.filesystemPolicyDecisionPoint(
+					directory.toString(), List.of(new EchoPIP()), List.of(new SimpleFunctionLibrary()));
+			decide(pdp);
+			long start = System.nanoTime();
+			decide(pdp);
+			long end = System.nanoTime();
+			pdp.dispose();
+			return (end - start) / runs;
+		} finally {
+			PolicyCorpusGenerator.delete(directory);
+		}
+	}
+
+	private void decide(PolicyDecisionPoint pdp) {
+		for (int i = 0; i < runs; i++) {
+			pdp.decide(i % 2 == 0 ? READ_SUBSCRIPTION : WRITE_SUBSCRIPTION).blockFirst();
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.sapl.api.functions.Function;
+import io.sapl.api.functions.FunctionException;
+import io.sapl.api.functions.FunctionLibrary;
+import io.sapl.api.interpreter.Val;
+import io.sapl.api.validation.Text;
+
+/**
+ * Regular expression matching with compiled patterns kept in a bounded cache
+ * keyed by the pattern string, so a pattern used by a policy is only compiled
+ * on its first evaluation. {@link Pattern} instances are immutable and can be
+ * shared by concurrent evaluations.
+ */
+@FunctionLibrary(name = "regex", description = "regular expression matching with cached patterns")
+public class RegexFunctionLibrary {
+
+	private static final long DEFAULT_CACHE_SIZE = 1_000L;
+
+	private final Cache<String, Pattern> patterns;
+
+	public RegexFunctionLibrary() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	public RegexFunctionLibrary(long maximumCacheSize) {
+		patterns = Caffeine.newBuilder().maximumSize(maximumCacheSize).recordStats().build();
+	}
+
+	@Function(docs = "true, if the whole value matches the regular expression")
+	public Val matches(@Text Val value, @Text Val regex) throws FunctionException {
+		return Val.of(pattern(regex).matcher(value.get().asText()).matches());
+	}
+
+	@Function(docs = "true, if the value contains a match of the regular expression")
+	public Val find(@Text Val value, @Text Val regex) throws FunctionException {
+		return Val.of(pattern(regex).matcher(value.get().asText()).find());
+	}
+
+	/**
+	 * @return a snapshot of the hit and miss counters of the pattern cache.
+	 */
+	public CacheStats stats() {
+		return patterns.stats();
+	}
+
+	private Pattern pattern(Val regex) throws FunctionException {
+		var expression = regex.get().asText();
+		var pattern = patterns.getIfPresent(expression);
+		if (pattern == null) {
+			try {
+				pattern = Pattern.compile(expression);
+			} catch (PatternSyntaxException e) {
+				throw new FunctionException("Illegal regular expression: " + e.getMessage());
+			}
+			patterns.put(expression, pattern);
+		}
+		return pattern;
+	}
+
+}
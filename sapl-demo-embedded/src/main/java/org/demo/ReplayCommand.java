@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+import org.demo.pdp.AsyncPolicyDecisionPoint;
+import org.demo.recording.SubscriptionLogReader;
+import org.demo.recording.SubscriptionRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Replays a subscription log recorded by a
+ * {@code RecordingPolicyDecisionPoint}, e.g., with the {@code -record} option
+ * of the load test, against the PDP of the demo.
+ * 
+ * By default the subscriptions are issued at the pace they were recorded and
+ * the latency is measured from the scheduled time of a subscription, so a PDP
+ * falling behind is not hidden by the replay backing off. At maximum speed,
+ * every subscription is issued as soon as fewer than the given number of
+ * decisions are outstanding. The first decision of each subscription is
+ * compared with the recorded one, and all divergences are reported.
+ */
+@Command(name = "replay", description = "Replays a recorded subscription log and reports latency and decisions diverging from the recording.")
+public class ReplayCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplayCommand.class);
+
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final int MAX_LOGGED_DIVERGENCES = 10;
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Parameters(index = "0", description = "The subscription log to replay.")
+	private Path logFile;
+
+	@Option(names = { "-max-speed" }, description = "Ignore the recorded pace and replay as fast as possible.")
+	private boolean maxSpeed;
+
+	@Option(names = { "-c", "-concurrency" }, description = "Maximal number of outstanding decisions. Defaults to 64.")
+	private int concurrency = 64;
+
+	@Override
+	public Integer call() throws Exception {
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		var asyncPdp = new AsyncPolicyDecisionPoint(pdp);
+		var recorder = new Recorder(HISTOGRAM_PRECISION);
+		var outstanding = new Semaphore(concurrency);
+		var replayed = new LongAdder();
+		var divergences = new LongAdder();
+		var decisionDivergences = new LongAdder();
+
+		LOGGER.info("Replaying {} {}...", logFile, maxSpeed ? "at maximum speed" : "at recorded pace");
+		long start = System.nanoTime();
+		long firstTimestampMicros = -1L;
+		try (var log = new SubscriptionLogReader(logFile)) {
+			SubscriptionRecord record;
+			while ((record = log.next()) != null) {
+				long scheduled = 0L;
+				if (!maxSpeed) {
+					if (firstTimestampMicros < 0) {
+						firstTimestampMicros = record.getTimestampMicros();
+					}
+					long offsetMicros = record.getTimestampMicros() - firstTimestampMicros;
+					scheduled = start + TimeUnit.MICROSECONDS.toNanos(offsetMicros);
+					long wait = scheduled - System.nanoTime();
+					if (wait > 0) {
+						LockSupport.parkNanos(wait);
+					}
+				}
+				outstanding.acquire();
+				long issued = maxSpeed ? System.nanoTime() : scheduled;
+				var recorded = record;
+				asyncPdp.decideOnce(record.getSubscription()).whenComplete((decision, error) -> {
+					try {
+						recorder.recordValue(System.nanoTime() - issued);
+						var replayedDecision = SubscriptionRecord.toJson(decision);
+						if (recorded.getDecision() != null && !recorded.getDecision().equals(replayedDecision)) {
+							divergences.increment();
+							if (!Objects.equals(recorded.getDecision().get("decision"),
+									replayedDecision.get("decision"))) {
+								decisionDivergences.increment();
+							}
+							if (divergences.sum() <= MAX_LOGGED_DIVERGENCES) {
+								LOGGER.warn("Diverging decision for {}: recorded {}, replayed {}",
+										recorded.getSubscription(), recorded.getDecision(), replayedDecision);
+							}
+						}
+						replayed.increment();
+					} finally {
+						outstanding.release();
+					}
+				});
+			}
+			outstanding.acquire(concurrency);
+		} finally {
+			pdp.dispose();
+		}
+		long end = System.nanoTime();
+
+		LatencyReport.log(LOGGER, "Replay Results:", recorder.getIntervalHistogram(), (end - start) / 1_000_000_000.0D);
+		LOGGER.info("Replayed   : {} subscriptions", replayed.sum());
+		LOGGER.info("Divergent  : {} decisions, {} of them with a different decision", divergences.sum(),
+				decisionDivergences.sum());
+		return divergences.sum() == 0 ? 0 : 1;
+	}
+
+}
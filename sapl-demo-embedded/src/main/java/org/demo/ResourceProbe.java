@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the heap and CPU usage of the JVM for the benchmarks holding many
+ * subscriptions open or loading growing policy stores.
+ */
+final class ResourceProbe {
+
+	private static final int GC_ROUNDS = 3;
+	private static final long GC_PAUSE_MS = 100L;
+
+	private ResourceProbe() {
+	}
+
+	/**
+	 * Requests several garbage collections and returns the used heap afterwards,
+	 * which approximates the size of the live objects.
+	 * @return the used heap in bytes.
+	 * @throws InterruptedException if interrupted while waiting for the
+	 * collections.
+	 */
+	static long usedHeapAfterGc() throws InterruptedException {
+		var memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < GC_ROUNDS; i++) {
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(GC_PAUSE_MS);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * @return the CPU time used by all threads of the JVM in nanoseconds, or -1 if
+	 * not supported by the JVM.
+	 */
+	static long processCpuNanos() {
+		var os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+		}
+		return -1L;
+	}
+
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Shows how decision latency and heap consumption of the embedded PDP scale
+ * with the number of policy documents. For each corpus size a synthetic policy
+ * store is generated by the {@link PolicyCorpusGenerator}, loaded from the
+ * filesystem and measured with sequential blocking decisions.
+ * 
+ * The results are logged as CSV, one row per corpus size, and optionally
+ * written to a file, ready for plotting.
+ */
+@Command(name = "scale", description = "Measures decision latency and heap consumption for growing synthetic policy stores.")
+public class ScalingBenchmarkCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScalingBenchmarkCommand.class);
+
+	private static final String CSV_HEADER = "documents,loadMs,heapMb,meanUs,p50Us,p90Us,p99Us,p999Us";
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final double NANOS_PER_MICRO = 1_000.0D;
+	private static final double NANOS_PER_MILLI = 1_000_000.0D;
+	private static final double BYTES_PER_MB = 1024.0D * 1024.0D;
+
+	@Option(names = { "-sizes" }, split = ",", description = "Numbers of policy documents to measure. Defaults to 100,1000,10000,100000.")
+	private List<Integer> sizes = List.of(100, 1_000, 10_000, 100_000);
+
+	@Option(names = { "-selectivity" }, description = "Share of policies whose target matches the subscription. Defaults to 0.01.")
+	private double selectivity = 0.01D;
+
+	@Option(names = { "-depth" }, description = "Number of statements in the where-block of each policy. Defaults to 3.")
+	private int conditionDepth = 3;
+
+	@Option(names = { "-pip" }, description = "Share of policies accessing the echo PIP. Defaults to 0.1.")
+	private double pipUsage = 0.1D;
+
+	@Option(names = { "-seed" }, description = "Seed for generating the policy corpus. Defaults to 42.")
+	private long seed = 42L;
+
+	@Option(names = { "-r", "-runs" }, description = "Number of measured decisions per corpus size. Defaults to 2000.")
+	private int runs = 2_000;
+
+	@Option(names = { "-o", "-output" }, description = "Optional CSV file the results are written to.")
+	private Path output;
+
+	@Override
+	public Integer call() throws Exception {
+		var generator = new PolicyCorpusGenerator(selectivity, conditionDepth, pipUsage, seed);
+		List<String> rows = new ArrayList<>();
+		rows.add(CSV_HEADER);
+		for (int documents : sizes) {
+			LOGGER.info("Generating {} policies...", documents);
+			Path corpus = generator.generate(documents);
+			try {
+				rows.add(measure(corpus, documents));
+			} finally {
+				PolicyCorpusGenerator.delete(corpus);
+			}
+		}
+		rows.forEach(row -> LOGGER.info("{}", row));
+		if (output != null) {
+			Files.write(output, rows, StandardCharsets.UTF_8);
+			LOGGER.info("Results written to {}", output);
+		}
+		return 0;
+	}
+
+	private String measure(Path corpus, int documents) throws Exception {
+		long heapBefore = ResourceProbe.usedHeapAfterGc();
+		long loadStart = System.nanoTime();
+		EmbeddedPolicyDecisionPoint pdp = PolicyDecisionPointFactory.filesystemPolicyDecisionPoint(
+				corpus.toString(), List.of(new EchoPIP()), List.of(new SimpleFunctionLibrary()));
+		// the first decision ensures all documents are indexed
+		pdp.decide(READ_SUBSCRIPTION).blockFirst();
+		long loadEnd = System.nanoTime();
+		long heap = ResourceProbe.usedHeapAfterGc() - heapBefore;
+
+		LOGGER.info("Warming up...");
+		decide(pdp, new Histogram(HISTOGRAM_PRECISION));
+		LOGGER.info("Measuring...");
+		var histogram = new Histogram(HISTOGRAM_PRECISION);
+		decide(pdp, histogram);
+		pdp.dispose();
+
+		return String.format(Locale.ROOT, "%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f", documents,
+				(loadEnd - loadStart) / NANOS_PER_MILLI, heap / BYTES_PER_MB, histogram.getMean() / NANOS_PER_MICRO,
+				percentile(histogram, 50.0D), percentile(histogram, 90.0D), percentile(histogram, 99.0D),
+				percentile(histogram, 99.9D));
+	}
+
+	private void decide(PolicyDecisionPoint pdp, Histogram histogram) {
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			pdp.decide(READ_SUBSCRIPTION).blockFirst();
+			histogram.recordValue(System.nanoTime() - start);
+		}
+	}
+
+	private static double percentile(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO;
+	}
+
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+/**
+ * Hook for attaching a profiler to the measurement phase of a performance
+ * scenario, e.g., for recording an allocation flame graph per scenario.
+ */
+public interface ScenarioProfiler {
+
+	/**
+	 * A profiler doing nothing.
+	 */
+	ScenarioProfiler NONE = new ScenarioProfiler() {
+		@Override
+		public void start(String scenario) {
+			// nothing to profile
+		}
+
+		@Override
+		public void stop(String scenario) {
+			// nothing to profile
+		}
+	};
+
+	/**
+	 * Called right before the measurement of a scenario starts.
+	 * @param scenario the identifier of the scenario.
+	 */
+	void start(String scenario);
+
+	/**
+	 * Called right after the measurement of a scenario ended.
+	 * @param scenario the identifier of the scenario.
+	 */
+	void stop(String scenario);
+
+}
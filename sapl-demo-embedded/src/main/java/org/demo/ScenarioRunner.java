@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.demo.results.BenchmarkReport;
+import org.demo.results.BenchmarkResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the performance scenarios of the demo. Each scenario is executed once
+ * for warming up and once for measuring on the calling thread. Besides the
+ * total time, the latency of every single operation, the bytes allocated by
+ * the calling thread and the garbage collections during the measurement are
+ * recorded. The results of all scenarios are collected for a machine-readable
+ * report.
+ * 
+ * The allocations are read from the {@code com.sun.management.ThreadMXBean}.
+ * As only the calling thread is accounted, scenarios running parts of the
+ * evaluation on other threads, e.g., the batch scenario, under-report their
+ * allocations. The garbage collection counters cover the whole JVM.
+ */
+class ScenarioRunner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScenarioRunner.class);
+
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final double BILLION = 1_000_000_000.0D;
+	private static final double MILLION = 1_000_000.0D;
+	private static final DecimalFormat decFormat = new DecimalFormat("#.####");
+
+	private final List<BenchmarkResult> results = new ArrayList<>();
+
+	private final ScenarioProfiler profiler;
+
+	/**
+	 * Creates a new {@code ScenarioRunner} without profiling.
+	 */
+	ScenarioRunner() {
+		this(ScenarioProfiler.NONE);
+	}
+
+	/**
+	 * Creates a new {@code ScenarioRunner}.
+	 * @param profiler the profiler attached to the measurement of each scenario.
+	 */
+	ScenarioRunner(ScenarioProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Warms up and measures a scenario.
+	 * @param scenario the identifier of the scenario in the report.
+	 * @param title the title for logging the results.
+	 * @param operations the number of operations to execute in each phase.
+	 * @param decisionsPerOperation the number of decisions made by one operation.
+	 * @param operation the operation to measure.
+	 * @return the measurements of the scenario.
+	 */
+	BenchmarkResult run(String scenario, String title, int operations, int decisionsPerOperation,
+			Runnable operation) {
+		LOGGER.info("Warming up...");
+		for (int i = 0; i < operations; i++) {
+			operation.run();
+		}
+		LOGGER.info("Measuring...");
+		var histogram = new Histogram(HISTOGRAM_PRECISION);
+		profiler.start(scenario);
+		long gcCountBefore = gcCount();
+		long gcTimeBefore = gcTimeMs();
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			long operationStart = System.nanoTime();
+			operation.run();
+			histogram.recordValue(System.nanoTime() - operationStart);
+		}
+		long end = System.nanoTime();
+		long allocatedAfter = allocatedBytes();
+		long gcCountAfter = gcCount();
+		long gcTimeAfter = gcTimeMs();
+		profiler.stop(scenario);
+
+		var result = new BenchmarkResult();
+		result.setScenario(scenario);
+		result.setOperations(operations);
+		result.setDecisionsPerOperation(decisionsPerOperation);
+		result.setTotalSeconds((end - start) / BILLION);
+		result.setThroughput(operations / result.getTotalSeconds());
+		result.setMeanMs(histogram.getMean() / MILLION);
+		result.setP50Ms(histogram.getValueAtPercentile(50.0D) / MILLION);
+		result.setP90Ms(histogram.getValueAtPercentile(90.0D) / MILLION);
+		result.setP99Ms(histogram.getValueAtPercentile(99.0D) / MILLION);
+		result.setP999Ms(histogram.getValueAtPercentile(99.9D) / MILLION);
+		result.setMaxMs(histogram.getMaxValue() / MILLION);
+		long allocated = allocatedBefore < 0 ? -1L : allocatedAfter - allocatedBefore;
+		result.setAllocatedBytesPerOperation(allocated < 0 ? -1L : allocated / operations);
+		result.setAllocatedBytesPerDecision(
+				allocated < 0 ? -1L : allocated / ((long) operations * decisionsPerOperation));
+		result.setGcCount(gcCountAfter - gcCountBefore);
+		result.setGcTimeMs(gcTimeAfter - gcTimeBefore);
+		results.add(result);
+		logResult(title, result);
+		return result;
+	}
+
+	/**
+	 * Logs the allocations and garbage collections of all scenarios run so far
+	 * side by side.
+	 */
+	void logAllocationSummary() {
+		LOGGER.info("Allocation Summary:");
+		for (var result : results) {
+			LOGGER.info("{} : {} bytes/decision, {} GCs, {} ms GC time", result.getScenario(),
+					result.getAllocatedBytesPerDecision(), result.getGcCount(), result.getGcTimeMs());
+		}
+	}
+
+	/**
+	 * @return a report of all scenarios run so far.
+	 */
+	BenchmarkReport report() {
+		return BenchmarkReport.of(results);
+	}
+
+	private static void logResult(String title, BenchmarkResult result) {
+		LOGGER.info(title);
+		LOGGER.info("Runs  : {}", result.getOperations());
+		LOGGER.info("Total : {} s", decFormat.format(result.getTotalSeconds()));
+		LOGGER.info("Avg.  : {} ms", decFormat.format(result.getMeanMs()));
+		LOGGER.info("p50   : {} ms", decFormat.format(result.getP50Ms()));
+		LOGGER.info("p99   : {} ms", decFormat.format(result.getP99Ms()));
+		LOGGER.info("p99.9 : {} ms", decFormat.format(result.getP999Ms()));
+		if (result.getAllocatedBytesPerOperation() >= 0) {
+			LOGGER.info("Alloc.: {} bytes/op", result.getAllocatedBytesPerOperation());
+		}
+		LOGGER.info("GC    : {} collections, {} ms", result.getGcCount(), result.getGcTimeMs());
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far, or -1 if the JVM
+	 * does not support measuring allocations.
+	 */
+	private static long allocatedBytes() {
+		var threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			var allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (allocationMXBean.isThreadAllocatedMemorySupported()
+					&& allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+				return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1L;
+	}
+
+	private static long gcCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+	}
+
+	private static long gcTimeMs() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.demo.pdp.SharingPolicyDecisionPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import reactor.core.Disposable;
+
+/**
+ * Opens many streaming subscriptions for the same authorization subscription
+ * and compares the heap and CPU cost of one evaluation per subscriber with the
+ * {@link SharingPolicyDecisionPoint}, which evaluates the subscription once
+ * for all of them. The heap retained by the open subscriptions is measured
+ * after garbage collection and includes the subscribers themselves. The CPU
+ * time covers all threads of the JVM while opening the subscriptions.
+ */
+@Command(name = "shared-streams", description = "Compares the cost of many identical open subscriptions with and without sharing the upstream.")
+public class SharedStreamsCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SharedStreamsCommand.class);
+
+	private static final double MILLION = 1_000_000.0D;
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-streams" }, description = "Number of identical open subscriptions. Defaults to 10000.")
+	private int streams = 10_000;
+
+	@Option(names = { "-timeout" }, description = "Seconds to wait for the first decision of all subscriptions. Defaults to 60.")
+	private int timeoutSeconds = 60;
+
+	@Override
+	public Integer call() throws Exception {
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		try {
+			measure("Unshared", pdp);
+			var sharingPdp = new SharingPolicyDecisionPoint(pdp);
+			measure("Shared", sharingPdp);
+			LOGGER.info("Upstreams left after cancelling: {}", sharingPdp.sharedSubscriptions());
+		} finally {
+			pdp.dispose();
+		}
+		return 0;
+	}
+
+	private void measure(String title, PolicyDecisionPoint pdp) throws InterruptedException {
+		LOGGER.info("Opening {} subscriptions ({})...", streams, title);
+		long heapBefore = ResourceProbe.usedHeapAfterGc();
+		long cpuBefore = ResourceProbe.processCpuNanos();
+		long start = System.nanoTime();
+
+		var firstDecisions = new CountDownLatch(streams);
+		List<Disposable> subscriptions = new ArrayList<>(streams);
+		for (int i = 0; i < streams; i++) {
+			var received = new AtomicBoolean();
+			subscriptions.add(pdp.decide(READ_SUBSCRIPTION).subscribe(decision -> {
+				if (received.compareAndSet(false, true)) {
+					firstDecisions.countDown();
+				}
+			}));
+		}
+		boolean complete = firstDecisions.await(timeoutSeconds, TimeUnit.SECONDS);
+
+		long elapsed = System.nanoTime() - start;
+		long cpu = ResourceProbe.processCpuNanos() - cpuBefore;
+		long heap = ResourceProbe.usedHeapAfterGc() - heapBefore;
+		subscriptions.forEach(Disposable::dispose);
+
+		if (!complete) {
+			LOGGER.warn("Only {} of {} subscriptions received a decision within {} s",
+					streams - firstDecisions.getCount(), streams, timeoutSeconds);
+		}
+		LOGGER.info("{} Results for {} open subscriptions:", title, streams);
+		LOGGER.info("Open time  : {} ms", Math.round(elapsed / MILLION));
+		LOGGER.info("CPU time   : {} ms", cpu < 0 ? "n/a" : Math.round(cpu / MILLION));
+		LOGGER.info("Heap       : {} KiB retained, {} bytes per subscription", heap / 1024, heap / streams);
+	}
+
+}
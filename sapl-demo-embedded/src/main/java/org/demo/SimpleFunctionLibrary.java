@@ -1,5 +1,8 @@
 package org.demo;
 
+import org.demo.functions.FunctionMemoizer;
+import org.demo.functions.Pure;
+
 import io.sapl.api.functions.Function;
 import io.sapl.api.functions.FunctionException;
 import io.sapl.api.functions.FunctionLibrary;
@@ -10,8 +13,36 @@
 @FunctionLibrary(name = "simple", description = "some simple functions")
 public class SimpleFunctionLibrary {
 
+	private final FunctionMemoizer memoizer;
+
+	public SimpleFunctionLibrary() {
+		this(FunctionMemoizer.disabled());
+	}
+
+	public SimpleFunctionLibrary(FunctionMemoizer memoizer) {
+		this.memoizer = memoizer;
+	}
+
+	@Pure
 	@Function
 	public Val length(Val parameter) throws FunctionException {
+		return memoizer.memoize("length", arguments -> computeLength(arguments[0]), parameter);
+	}
+
+	@Pure
+	@Function
+	public Val append(@Text @Number Val... parameters) throws FunctionException {
+		return memoizer.memoize("append", SimpleFunctionLibrary::computeAppend, parameters);
+	}
+
+	/**
+	 * @return the memoizer of the pure functions of this library.
+	 */
+	public FunctionMemoizer getMemoizer() {
+		return memoizer;
+	}
+
+	private static Val computeLength(Val parameter) throws FunctionException {
 		if (parameter.isArray()) {
 			return Val.of(parameter.get().size());
 		} else if (parameter.isTextual()) {
@@ -22,8 +53,7 @@ public Val length(Val parameter) throws FunctionException {
 		}
 	}
 
-	@Function
-	public Val append(@Text @Number Val... parameters) throws FunctionException {
+	private static Val computeAppend(Val... parameters) {
 		var builder = new StringBuilder();
 		for (var parameter : parameters) {
 			if (parameter.isTextual()) {
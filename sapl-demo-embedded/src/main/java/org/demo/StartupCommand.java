@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+import picocli.CommandLine.Command;
+
+/**
+ * Measures the cold start of a short-lived application using the embedded PDP:
+ * the time from the start of the JVM until the PDP is constructed, i.e., the
+ * grammar infrastructure is set up and all policy documents are parsed, and
+ * until the first decision is available.
+ * 
+ * Run it once with and once without a class data sharing archive to see how
+ * much of the start-up time is spent loading and verifying classes. The
+ * 'appcds' profile of this module creates such an archive.
+ */
+@Command(name = "startup", description = "Measures the time from JVM start to the first decision of the embedded PDP.")
+public class StartupCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StartupCommand.class);
+
+	@Override
+	public Integer call() throws Exception {
+		var runtime = ManagementFactory.getRuntimeMXBean();
+		long mainEntered = runtime.getUptime();
+		EmbeddedPolicyDecisionPoint pdp = PolicyDecisionPointFactory
+				.resourcesPolicyDecisionPoint(List.of(new EchoPIP()), List.of(new SimpleFunctionLibrary()));
+		long pdpConstructed = runtime.getUptime();
+		AuthorizationDecision decision = pdp.decide(READ_SUBSCRIPTION).blockFirst();
+		long firstDecision = runtime.getUptime();
+
+		LOGGER.info("Start-up Results:");
+		LOGGER.info("Class data sharing : {}", classDataSharing());
+		LOGGER.info("JVM to command     : {} ms", mainEntered);
+		LOGGER.info("PDP construction   : {} ms", pdpConstructed - mainEntered);
+		LOGGER.info("First decision     : {} ms ({})", firstDecision - pdpConstructed,
+				decision != null ? decision.getDecision() : "null");
+		LOGGER.info("Total              : {} ms", firstDecision);
+		pdp.dispose();
+		return 0;
+	}
+
+	/**
+	 * The JVM reports whether class data sharing is in effect in the
+	 * 'java.vm.info' property, e.g., "mixed mode, sharing". An application
+	 * archive which does not match the class path is rejected by the JVM, which
+	 * then runs without sharing or with the JDK's default archive only.
+	 */
+	private static String classDataSharing() {
+		boolean archiveRequested = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+				.anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+		boolean sharing = System.getProperty("java.vm.info", "").contains("sharing");
+		if (archiveRequested) {
+			return sharing ? "active" : "inactive (the archive was rejected, e.g., as the class path differs)";
+		}
+		return sharing ? "inactive (JDK default archive only)" : "inactive";
+	}
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Measures streaming re-evaluation. Two policies depending on the
+ * {@link TickingPIP} alternate between PERMIT and DENY with every tick, so
+ * every emission of the PIP changes the decision of every open subscription.
+ * Both policies add an obligation carrying the emission time of the tick the
+ * decision was made for. The latency is measured from the emission of that
+ * tick to the arrival of the decision at the subscriber, so decisions
+ * delivered after later ticks were emitted are not under-reported. The measurement is repeated for different numbers of
+ * concurrently open subscriptions.
+ * 
+ * With a slow consumer, each subscriber spends the given time per decision on
+ * a separate thread and only the latest decision is kept while the subscriber
+ * is busy. This shows the decision throughput which can be delivered under
+ * backpressure.
+ */
+@Command(name = "streaming", description = "Measures the latency from a PIP emission to the changed decision for many open subscriptions.")
+public class StreamingBenchmarkCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StreamingBenchmarkCommand.class);
+
+	private static final String TICKING_POLICIES = "policy \"even ticks\"\npermit\n  action == \"tick\"\nwhere\n"
+			+ "  var tick = subject.<ticker.tick>;\n  tick.seq % 2 == 0;\n"
+			+ "obligation\n  { \"type\": \"tick\", \"emittedNanos\": tick.emittedNanos }\n\n"
+			+ "policy \"odd ticks\"\ndeny\n  action == \"tick\"\nwhere\n"
+			+ "  var tick = subject.<ticker.tick>;\n  tick.seq % 2 == 1;\n"
+			+ "obligation\n  { \"type\": \"tick\", \"emittedNanos\": tick.emittedNanos }\n";
+	private static final int HISTOGRAM_PRECISION = 3;
+
+	@Option(names = { "-subscriptions" }, split = ",", description = "Numbers of concurrently open subscriptions. Defaults to 1,100,10000.")
+	private List<Integer> subscriptionCounts = List.of(1, 100, 10_000);
+
+	@Option(names = { "-interval" }, description = "Milliseconds between two ticks of the PIP. Defaults to 10.")
+	private long intervalMs = 10L;
+
+	@Option(names = { "-payload" }, description = "Payload size of a tick in characters. Defaults to 64.")
+	private int payloadSize = 64;
+
+	@Option(names = { "-w", "-warmup" }, description = "Warm-up duration in seconds per run. Defaults to 5.")
+	private int warmupSeconds = 5;
+
+	@Option(names = { "-d", "-duration" }, description = "Measurement duration in seconds per run. Defaults to 10.")
+	private int durationSeconds = 10;
+
+	@Option(names = { "-slow-consumer" }, description = "Microseconds a subscriber spends per decision. 0 (default) consumes decisions immediately.")
+	private long consumerMicros = 0L;
+
+	@Override
+	public Integer call() throws Exception {
+		var policies = Files.createTempDirectory("sapl-streaming-");
+		Files.writeString(policies.resolve("pdp.json"), PolicyCorpusGenerator.PDP_CONFIGURATION,
+				StandardCharsets.UTF_8);
+		Files.writeString(policies.resolve("ticking.sapl"), TICKING_POLICIES, StandardCharsets.UTF_8);
+		var pip = new TickingPIP(Duration.ofMillis(intervalMs), payloadSize);
+		EmbeddedPolicyDecisionPoint pdp = PolicyDecisionPointFactory.filesystemPolicyDecisionPoint(
+				policies.toString(), List.of(pip), List.of(new SimpleFunctionLibrary()));
+		try {
+			for (int subscriptionCount : subscriptionCounts) {
+				measure(pdp, subscriptionCount);
+			}
+		} finally {
+			pdp.dispose();
+			PolicyCorpusGenerator.delete(policies);
+		}
+		return 0;
+	}
+
+	private void measure(PolicyDecisionPoint pdp, int subscriptionCount) throws InterruptedException {
+		LOGGER.info("Opening {} subscriptions...", subscriptionCount);
+		var recorder = new Recorder(HISTOGRAM_PRECISION);
+		var decisionCount = new LongAdder();
+		List<Disposable> subscriptions = new ArrayList<>(subscriptionCount);
+		long setupStart = System.nanoTime();
+		for (int i = 0; i < subscriptionCount; i++) {
+			var authzSubscription = AuthorizationSubscription.of(EmbeddedPDPDemo.SUBJECT, "tick", "stream" + i);
+			subscriptions.add(decisions(pdp, authzSubscription).skip(1).subscribe(decision -> {
+				emissionOf(decision).ifPresent(emitted -> recorder.recordValue(System.nanoTime() - emitted));
+				decisionCount.increment();
+			}));
+		}
+		LOGGER.info("Subscriptions opened in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - setupStart));
+
+		LOGGER.info("Warming up for {} s...", warmupSeconds);
+		TimeUnit.SECONDS.sleep(warmupSeconds);
+		recorder.getIntervalHistogram();
+		decisionCount.reset();
+
+		LOGGER.info("Measuring for {} s...", durationSeconds);
+		long start = System.nanoTime();
+		TimeUnit.SECONDS.sleep(durationSeconds);
+		var histogram = recorder.getIntervalHistogram();
+		long delivered = decisionCount.sum();
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0D;
+		subscriptions.forEach(Disposable::dispose);
+
+		LatencyReport.log(LOGGER, "Streaming Results for " + subscriptionCount + " subscriptions:", histogram,
+				seconds);
+		LOGGER.info("Delivered  : {} decisions/s ({} expected without backpressure)", Math.round(delivered / seconds),
+				Math.round(subscriptionCount * 1_000.0D / intervalMs));
+	}
+
+	/**
+	 * @return the emission time of the tick the decision was made for, taken from
+	 * its obligation, or empty if the decision has none.
+	 */
+	private static Optional<Long> emissionOf(AuthorizationDecision decision) {
+		return decision.getObligations().filter(obligations -> obligations.size() > 0)
+				.map(obligations -> obligations.get(0).path("emittedNanos")).filter(JsonNode::isNumber)
+				.map(JsonNode::asLong);
+	}
+
+	private Flux<AuthorizationDecision> decisions(PolicyDecisionPoint pdp,
+			AuthorizationSubscription authzSubscription) {
+		var decisions = pdp.decide(authzSubscription);
+		if (consumerMicros <= 0) {
+			return decisions;
+		}
+		return decisions.onBackpressureLatest().publishOn(Schedulers.boundedElastic(), 1)
+				.doOnNext(decision -> LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(consumerMicros)));
+	}
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.sapl.api.interpreter.Val;
+import io.sapl.api.pip.Attribute;
+import io.sapl.api.pip.PolicyInformationPoint;
+import reactor.core.publisher.Flux;
+
+/**
+ * A streaming PIP for benchmarking. It emits a tick at a fixed rate, which is
+ * an object containing a sequence number, the value of
+ * {@link System#nanoTime()} at its emission and a text payload of configurable
+ * size, e.g.:
+ * 
+ * <pre>
+ * {"seq": 42, "emittedNanos": 1234567890, "payload": "xxxx"}
+ * </pre>
+ * 
+ * All subscriptions to the attribute share a single timer, i.e., every tick is
+ * observed by all open subscriptions at the same time. Policies may pass the
+ * emission time of a tick on in their decision, so the latency until a
+ * decision reflected the tick can be measured.
+ */
+@PolicyInformationPoint(name = "ticker", description = "PIP emitting a counter at a fixed rate")
+public class TickingPIP {
+
+	private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+	private final Flux<Val> ticks;
+
+	/**
+	 * Creates a new {@code TickingPIP}.
+	 * @param interval the time between two ticks.
+	 * @param payloadSize the length of the payload text in characters.
+	 */
+	public TickingPIP(Duration interval, int payloadSize) {
+		var payload = "x".repeat(payloadSize);
+		ticks = Flux.interval(interval).onBackpressureDrop().map(seq -> {
+			ObjectNode tick = JSON.objectNode();
+			tick.put("seq", seq);
+			tick.put("emittedNanos", System.nanoTime());
+			tick.put("payload", payload);
+			return Val.of(tick);
+		}).share();
+	}
+
+	@Attribute(name = "tick")
+	public Flux<Val> tick(Val value, Map<String, JsonNode> variables) {
+		return ticks;
+	}
+
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import static org.demo.EmbeddedPDPDemo.READ_SUBSCRIPTION;
+import static org.demo.EmbeddedPDPDemo.WRITE_SUBSCRIPTION;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.demo.pdp.BlockingPolicyDecisionPoint;
+import org.demo.warmup.PolicyDecisionPointWarmer;
+import org.demo.warmup.StabilityDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Measures the time from the start of the JVM until the PDP serves decisions
+ * with a steady latency, with or without a warm-up by the
+ * {@link PolicyDecisionPointWarmer}.
+ * 
+ * After the optional warm-up, requests are simulated by deciding the
+ * subscriptions one after the other in windows of a fixed number of decisions,
+ * until the mean latency of the windows is stable. As the JIT compiler keeps
+ * its state for the lifetime of the JVM, run the command twice, once with
+ * {@code -skip-warmup}, to compare both.
+ */
+@Command(name = "warmup", description = "Measures the time to a steady decision latency with and without warming up the PDP.")
+public class WarmUpCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpCommand.class);
+
+	private static final double MICRO = 1_000.0D;
+
+	@ParentCommand
+	private EmbeddedPDPDemo demo;
+
+	@Option(names = { "-subscriptions" }, description = "Subscription log with the representative subscriptions, e.g. recorded by the load test. Defaults to the read and write subscriptions of the demo.")
+	private Path subscriptionLog;
+
+	@Option(names = { "-limit" }, description = "Maximal number of distinct subscriptions loaded from the log. Defaults to 10000.")
+	private int limit = 10_000;
+
+	@Option(names = { "-skip-warmup" }, description = "Serve without warming up.")
+	private boolean skipWarmUp;
+
+	@Option(names = { "-window" }, description = "Number of decisions per measurement window. Defaults to 1000.")
+	private int window = 1_000;
+
+	@Option(names = { "-tolerance" }, description = "Tolerated change of the mean latency between windows in percent. Defaults to 5.")
+	private double tolerancePercent = 5.0D;
+
+	@Option(names = { "-stable" }, description = "Number of consecutive windows within the tolerance. Defaults to 5.")
+	private int stableWindows = 5;
+
+	@Option(names = { "-max" }, description = "Maximal duration of the warm-up and of serving in seconds. Defaults to 120.")
+	private int maxSeconds = 120;
+
+	@Override
+	public Integer call() throws Exception {
+		var runtime = ManagementFactory.getRuntimeMXBean();
+		List<AuthorizationSubscription> subscriptions = subscriptionLog != null
+				? PolicyDecisionPointWarmer.loadSubscriptions(subscriptionLog, limit)
+				: List.of(READ_SUBSCRIPTION, WRITE_SUBSCRIPTION);
+		if (subscriptions.isEmpty()) {
+			LOGGER.error("No subscriptions found in {}", subscriptionLog);
+			return 2;
+		}
+		EmbeddedPolicyDecisionPoint pdp = demo.newPolicyDecisionPoint();
+		long constructed = runtime.getUptime();
+
+		if (!skipWarmUp) {
+			LOGGER.info("Warming up with {} subscriptions...", subscriptions.size());
+			var result = new PolicyDecisionPointWarmer(pdp, subscriptions, newStabilityDetector(),
+					Duration.ofSeconds(maxSeconds)).warmUp();
+			LOGGER.info("Warm-up {} after {} rounds and {} ms, {} us per decision on all cores",
+					result.isStable() ? "stable" : "not stable", result.getRounds(), result.getDuration().toMillis(),
+					Math.round(result.getMeanNanos() / MICRO));
+		}
+		long ready = runtime.getUptime();
+
+		LOGGER.info("Serving...");
+		var blockingPdp = new BlockingPolicyDecisionPoint(pdp);
+		var stability = newStabilityDetector();
+		long end = System.nanoTime() + Duration.ofSeconds(maxSeconds).toNanos();
+		double firstWindowMean = Double.NaN;
+		double mean;
+		int windows = 0;
+		int next = 0;
+		do {
+			long nanos = 0L;
+			for (int i = 0; i < window; i++) {
+				long start = System.nanoTime();
+				blockingPdp.decideOnce(subscriptions.get(next));
+				nanos += System.nanoTime() - start;
+				next = (next + 1) % subscriptions.size();
+			}
+			mean = (double) nanos / window;
+			if (windows++ == 0) {
+				firstWindowMean = mean;
+			}
+		} while (!stability.add(mean) && System.nanoTime() < end);
+		long steady = runtime.getUptime();
+		pdp.dispose();
+
+		LOGGER.info("Warm-up Results ({}):", skipWarmUp ? "without warm-up" : "with warm-up");
+		LOGGER.info("PDP construction  : {} ms after JVM start", constructed);
+		LOGGER.info("Ready             : {} ms after JVM start", ready);
+		LOGGER.info("Steady state      : {} ms after JVM start{}", steady,
+				stability.isStable() ? "" : " (not reached)");
+		LOGGER.info("First window      : {} us per decision", Math.round(firstWindowMean / MICRO));
+		LOGGER.info("Steady window     : {} us per decision after {} windows", Math.round(mean / MICRO), windows);
+		return 0;
+	}
+
+	private StabilityDetector newStabilityDetector() {
+		return new StabilityDetector(tolerancePercent / 100.0D, stableWindows);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.deadline;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.demo.EchoPIP;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.sapl.api.interpreter.Val;
+import io.sapl.api.pip.Attribute;
+import io.sapl.api.pip.PolicyInformationPoint;
+import io.sapl.api.validation.Text;
+import reactor.core.publisher.Flux;
+
+/**
+ * The {@link EchoPIP} counting a miss of the deadline budget whenever the first
+ * value of an attribute arrives later than the budget after the subscription,
+ * or the subscription is cancelled before the first value arrived.
+ * 
+ * The latter is the usual case: the clock of the decision starts before the
+ * PIP is subscribed, so the decision runs out of its budget first and cancels
+ * the evaluation, including the subscription to the PIP. In this demo, an echo
+ * is not cancelled before its value for any other reason.
+ */
+@PolicyInformationPoint(name = "echo", description = "PIP echoing the input value")
+public class DeadlineAwareEchoPIP extends EchoPIP {
+
+	private static final String ATTRIBUTE = "attribute <echo.echo>";
+
+	private final DeadlineBudget budget;
+
+	/**
+	 * Creates a new {@code DeadlineAwareEchoPIP}.
+	 * @param delay the delay of the echo.
+	 * @param budget the budget the echo is accounted against.
+	 */
+	public DeadlineAwareEchoPIP(Duration delay, DeadlineBudget budget) {
+		super(delay);
+		this.budget = budget;
+	}
+
+	@Override
+	@Attribute(name = "echo")
+	public Flux<Val> echo(@Text Val value, Map<String, JsonNode> variables) {
+		return Flux.defer(() -> {
+			long deadline = System.nanoTime() + budget.getBudget().toNanos();
+			var first = new AtomicBoolean(true);
+			return super.echo(value, variables).doOnNext(echoed -> {
+				if (first.compareAndSet(true, false) && System.nanoTime() > deadline) {
+					budget.recordMiss(ATTRIBUTE);
+				}
+			}).doOnCancel(() -> {
+				if (first.compareAndSet(true, false)) {
+					budget.recordMiss(ATTRIBUTE);
+				}
+			});
+		});
+	}
+
+}
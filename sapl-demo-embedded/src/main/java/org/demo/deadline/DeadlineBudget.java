@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.deadline;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * The time budget of a decision, e.g., the share of a request's latency
+ * objective reserved for authorization, together with counters of the
+ * decisions and of the misses of the budget.
+ * 
+ * Misses are counted by key. The {@code DeadlinePolicyDecisionPoint} counts
+ * missed decisions by a key derived from the subscription, deadline-aware PIPs
+ * count attributes delivered too late by the name of the attribute.
+ */
+public class DeadlineBudget {
+
+	private final Duration budget;
+
+	private final LongAdder decisions = new LongAdder();
+
+	private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@code DeadlineBudget}.
+	 * @param budget the time budget of a decision.
+	 */
+	public DeadlineBudget(Duration budget) {
+		this.budget = budget;
+	}
+
+	public Duration getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Counts a decision subject to the budget.
+	 */
+	public void recordDecision() {
+		decisions.increment();
+	}
+
+	/**
+	 * Counts a miss of the budget.
+	 * @param key the policy, attribute or subscription class which missed it.
+	 */
+	public void recordMiss(String key) {
+		misses.computeIfAbsent(key, k -> new LongAdder()).increment();
+	}
+
+	/**
+	 * @return the number of decisions subject to the budget.
+	 */
+	public long decisions() {
+		return decisions.sum();
+	}
+
+	/**
+	 * @param key the policy, attribute or subscription class.
+	 * @return the number of misses of the budget by the key.
+	 */
+	public long misses(String key) {
+		var counter = misses.get(key);
+		return counter == null ? 0L : counter.sum();
+	}
+
+	/**
+	 * Resets all counters, e.g., after warming up.
+	 */
+	public void reset() {
+		decisions.reset();
+		misses.clear();
+	}
+
+	/**
+	 * Logs the number of decisions and the misses by key, most frequent first.
+	 * @param logger the logger.
+	 */
+	public void log(Logger logger) {
+		logger.info("Deadline   : {} ms budget, {} decisions", budget.toMillis(), decisions());
+		misses.entrySet().stream()
+				.sorted(Comparator.comparingLong(entry -> -entry.getValue().sum()))
+				.forEach(entry -> logger.info("  missed by {} : {}", entry.getKey(), entry.getValue().sum()));
+	}
+
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.functions;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.sapl.api.functions.FunctionException;
+import io.sapl.api.interpreter.Val;
+
+/**
+ * Remembers the results of the {@link Pure} functions of a function library.
+ * 
+ * The memo is keyed by the name of the function and the JSON values of its
+ * arguments, which are compared by structural equality. Its size is bounded and
+ * entries are evicted by Caffeine's Window TinyLFU policy, so it can safely be
+ * shared by concurrent policy evaluations. As the key of a new entry outlives
+ * the evaluation, the argument values are copied when a result is stored.
+ * Failing invocations are not memoized.
+ * 
+ * A function library uses the memoizer by wrapping the bodies of its pure
+ * functions, e.g.:
+ * 
+ * <pre>
+ * &#64;Pure
+ * &#64;Function
+ * public Val length(Val parameter) throws FunctionException {
+ * 	return memoizer.memoize("length", args -&gt; computeLength(args[0]), parameter);
+ * }
+ * </pre>
+ */
+public class FunctionMemoizer {
+
+	private static final Object UNDEFINED = new Object();
+
+	private final Set<String> pureFunctions;
+
+	private final Cache<Key, Val> memo;
+
+	private FunctionMemoizer(Set<String> pureFunctions, Cache<Key, Val> memo) {
+		this.pureFunctions = pureFunctions;
+		this.memo = memo;
+	}
+
+	/**
+	 * Creates a memoizer for the functions of the given library class which are
+	 * annotated with {@link Pure}.
+	 * @param library the class of the function library.
+	 * @param maximumSize the maximal number of memoized results.
+	 * @return the memoizer.
+	 */
+	public static FunctionMemoizer forLibrary(Class<?> library, long maximumSize) {
+		var pureFunctions = new HashSet<String>();
+		for (Method method : library.getMethods()) {
+			if (method.isAnnotationPresent(Pure.class)) {
+				pureFunctions.add(method.getName());
+			}
+		}
+		return new FunctionMemoizer(Set.copyOf(pureFunctions),
+				Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build());
+	}
+
+	/**
+	 * Creates a memoizer which always invokes the function, e.g., to compare
+	 * against memoization in a benchmark.
+	 * @return the memoizer.
+	 */
+	public static FunctionMemoizer disabled() {
+		return new FunctionMemoizer(Set.of(), null);
+	}
+
+	/**
+	 * Returns the memoized result of the function for the given arguments, or
+	 * invokes the function and memoizes its result.
+	 * @param name the name of the function, which must be annotated with
+	 * {@link Pure}.
+	 * @param function the implementation of the function.
+	 * @param arguments the arguments of the invocation.
+	 * @return the result of the function.
+	 * @throws FunctionException if the invocation of the function fails.
+	 */
+	public Val memoize(String name, PureFunction function, Val... arguments) throws FunctionException {
+		if (memo == null) {
+			return function.apply(arguments);
+		}
+		if (!pureFunctions.contains(name)) {
+			throw new IllegalArgumentException("Function " + name + " is not annotated with @Pure.");
+		}
+		var result = memo.getIfPresent(new Key(name, values(arguments, false)));
+		if (result == null) {
+			result = function.apply(arguments);
+			memo.put(new Key(name, values(arguments, true)), result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return a snapshot of the hit and miss counters of the memo. All counters
+	 * are zero if memoization is disabled.
+	 */
+	public CacheStats stats() {
+		return memo == null ? CacheStats.empty() : memo.stats();
+	}
+
+	/**
+	 * Drops all memoized results.
+	 */
+	public void invalidateAll() {
+		if (memo != null) {
+			memo.invalidateAll();
+		}
+	}
+
+	private static List<Object> values(Val[] arguments, boolean copy) {
+		var values = new ArrayList<Object>(arguments.length);
+		for (var argument : arguments) {
+			if (argument.isUndefined()) {
+				values.add(UNDEFINED);
+			} else {
+				values.add(copy ? argument.get().deepCopy() : argument.get());
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * The implementation of a pure function.
+	 */
+	@FunctionalInterface
+	public interface PureFunction {
+
+		Val apply(Val... arguments) throws FunctionException;
+
+	}
+
+	private static final class Key {
+
+		private final String function;
+
+		private final List<Object> arguments;
+
+		Key(String function, List<Object> arguments) {
+			this.function = function;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			var other = (Key) obj;
+			return function.equals(other.function) && arguments.equals(other.arguments);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(function, arguments);
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Subscription;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import reactor.core.CoreSubscriber;
+
+/**
+ * A facade deciding single authorization subscriptions once for callers which
+ * do not use Reactor, returning a {@link CompletableFuture}.
+ * 
+ * Instead of assembling {@code .next().toFuture()} or {@code .blockFirst()} on
+ * every call, the decision flux of the delegate is subscribed to directly by a
+ * minimal subscriber, which requests one decision, completes the future and
+ * cancels the evaluation. Cancelling the future cancels the evaluation as well.
+ * 
+ * If the delegate completes without a decision or signals an error, the future
+ * is completed with INDETERMINATE.
+ */
+public class AsyncPolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	/**
+	 * Creates a new {@code AsyncPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the subscriptions.
+	 */
+	public AsyncPolicyDecisionPoint(PolicyDecisionPoint delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Decides the given subscription once.
+	 * @param authzSubscription the subscription to decide.
+	 * @return the future completed with the first decision.
+	 */
+	public CompletableFuture<AuthorizationDecision> decideOnce(AuthorizationSubscription authzSubscription) {
+		var subscriber = new FirstDecisionSubscriber();
+		delegate.decide(authzSubscription).subscribe(subscriber);
+		return subscriber.future;
+	}
+
+	private static final class FirstDecisionSubscriber implements CoreSubscriber<AuthorizationDecision> {
+
+		private final CompletableFuture<AuthorizationDecision> future = new CompletableFuture<>();
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			future.whenComplete((decision, error) -> subscription.cancel());
+			subscription.request(1L);
+		}
+
+		@Override
+		public void onNext(AuthorizationDecision decision) {
+			future.complete(decision);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			future.complete(AuthorizationDecision.INDETERMINATE);
+		}
+
+		@Override
+		public void onComplete() {
+			future.complete(AuthorizationDecision.INDETERMINATE);
+		}
+
+	}
+
+}
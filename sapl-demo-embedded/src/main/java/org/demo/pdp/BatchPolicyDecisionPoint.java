@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.util.List;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Decides a list of independent authorization subscriptions in one call, e.g.,
+ * for a permission matrix or a bulk export.
+ * 
+ * Each subscription is evaluated once on the given scheduler, so with the
+ * default parallel scheduler the entries are spread over all cores. Up to
+ * {@code concurrency} evaluations are in flight at the same time and their
+ * results are emitted in the order of the input list as soon as all preceding
+ * entries are decided. The decisions are returned as an array in the same
+ * order as the subscriptions.
+ */
+public class BatchPolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	private final Scheduler scheduler;
+
+	private final int concurrency;
+
+	/**
+	 * Creates a new {@code BatchPolicyDecisionPoint} evaluating on the parallel
+	 * scheduler with one evaluation in flight per core.
+	 * @param delegate the PDP evaluating the single subscriptions.
+	 */
+	public BatchPolicyDecisionPoint(PolicyDecisionPoint delegate) {
+		this(delegate, Schedulers.parallel(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new {@code BatchPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the single subscriptions.
+	 * @param scheduler the scheduler the single evaluations are run on.
+	 * @param concurrency the maximal number of evaluations in flight.
+	 */
+	public BatchPolicyDecisionPoint(PolicyDecisionPoint delegate, Scheduler scheduler, int concurrency) {
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Decides all given subscriptions once. A subscription for which the delegate
+	 * does not return a decision or signals an error is decided as
+	 * INDETERMINATE.
+	 * @param authzSubscriptions the subscriptions to decide.
+	 * @return the decisions, ordered like the subscriptions.
+	 */
+	public Mono<AuthorizationDecision[]> decide(List<AuthorizationSubscription> authzSubscriptions) {
+		return Flux.fromIterable(authzSubscriptions).flatMapSequential(this::decideOnce, concurrency)
+				.collectList().map(decisions -> decisions.toArray(new AuthorizationDecision[0]));
+	}
+
+	private Mono<AuthorizationDecision> decideOnce(AuthorizationSubscription authzSubscription) {
+		return delegate.decide(authzSubscription).next().subscribeOn(scheduler)
+				.defaultIfEmpty(AuthorizationDecision.INDETERMINATE)
+				.onErrorReturn(AuthorizationDecision.INDETERMINATE);
+	}
+
+}
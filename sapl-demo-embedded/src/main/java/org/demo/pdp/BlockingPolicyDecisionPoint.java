@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A facade deciding single authorization subscriptions once for blocking
+ * callers, e.g., services running on a thread per request or on virtual
+ * threads.
+ * 
+ * The calling thread waits for the future of an
+ * {@link AsyncPolicyDecisionPoint}, so no Reactor operators are assembled per
+ * call. Like {@code .blockFirst()}, it must not be called on the non-blocking
+ * threads of Reactor's schedulers, where waiting would stall other
+ * evaluations.
+ */
+public class BlockingPolicyDecisionPoint {
+
+	private final AsyncPolicyDecisionPoint async;
+
+	/**
+	 * Creates a new {@code BlockingPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the subscriptions.
+	 */
+	public BlockingPolicyDecisionPoint(PolicyDecisionPoint delegate) {
+		this.async = new AsyncPolicyDecisionPoint(delegate);
+	}
+
+	/**
+	 * Decides the given subscription once and waits for the decision.
+	 * @param authzSubscription the subscription to decide.
+	 * @return the first decision, or INDETERMINATE if the delegate did not return
+	 * one.
+	 * @throws IllegalStateException if called on a non-blocking thread.
+	 */
+	public AuthorizationDecision decideOnce(AuthorizationSubscription authzSubscription) {
+		if (Schedulers.isInNonBlockingThread()) {
+			throw new IllegalStateException(
+					"decideOnce() is blocking, which is not supported in thread " + Thread.currentThread().getName());
+		}
+		return async.decideOnce(authzSubscription).join();
+	}
+
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link PolicyDecisionPoint} decorator which remembers the latest decision
+ * for each authorization subscription.
+ * 
+ * The cache is keyed by the subscription itself. Subscriptions are compared by
+ * the structural equality of their JSON values, which does not depend on the
+ * order of object fields, i.e., the key is canonical. The size of the cache is
+ * bounded and entries are evicted by Caffeine's Window TinyLFU policy.
+ * 
+ * On a cache hit, the cached decision is emitted immediately, and the delegate
+ * is only subscribed to if the consumer requests more than one decision. Thus,
+ * the one-shot patterns {@code .blockFirst()} and {@code .take(1)} do not
+ * evaluate any policy at all, while streaming consumers still receive updates.
+ * 
+ * As a decision may depend on attributes of PIPs which change over time,
+ * entries expire after a time-to-live. Subscriptions which must always be
+ * evaluated can be excluded from caching altogether. Whenever the policy store
+ * changes, the invalidation signal given to the constructor must emit, which
+ * drops all entries.
+ * 
+ * The signal usually comes from watching the policy store independently of
+ * the delegate, e.g., with the {@link PolicyStoreWatcher}, as the embedded PDP
+ * does not publish its own reloads. The delegate may thus reload the policies
+ * only after the cache was dropped, and a decision of the old policies made in
+ * between is cached again. To close this window, all entries are dropped a
+ * second time one second after each signal. Decisions of the old policies may
+ * still be served until then, or for up to the time-to-live if the delegate
+ * takes longer to reload.
+ * 
+ * Multi-subscriptions are passed through to the delegate.
+ */
+public class CachingPolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private static final Duration RELOAD_SETTLE_DELAY = Duration.ofSeconds(1);
+
+	private final PolicyDecisionPoint delegate;
+
+	private final Predicate<AuthorizationSubscription> cacheable;
+
+	private final Cache<AuthorizationSubscription, AuthorizationDecision> cache;
+
+	private final Disposable invalidations;
+
+	/**
+	 * Creates a new {@code CachingPolicyDecisionPoint} caching all subscriptions.
+	 * @param delegate the PDP evaluating subscriptions on a cache miss.
+	 * @param maximumSize the maximal number of cached decisions.
+	 * @param timeToLive the time after which a cached decision expires.
+	 * @param invalidationSignal emits whenever the policy store of the delegate
+	 * changes.
+	 */
+	public CachingPolicyDecisionPoint(PolicyDecisionPoint delegate, long maximumSize, Duration timeToLive,
+			Flux<?> invalidationSignal) {
+		this(delegate, maximumSize, timeToLive, invalidationSignal, subscription -> true);
+	}
+
+	/**
+	 * Creates a new {@code CachingPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating subscriptions on a cache miss.
+	 * @param maximumSize the maximal number of cached decisions.
+	 * @param timeToLive the time after which a cached decision expires.
+	 * @param invalidationSignal emits whenever the policy store of the delegate
+	 * changes.
+	 * @param cacheable selects the subscriptions whose decisions may be cached,
+	 * e.g., to exclude subscriptions depending on rapidly changing PIPs.
+	 */
+	public CachingPolicyDecisionPoint(PolicyDecisionPoint delegate, long maximumSize, Duration timeToLive,
+			Flux<?> invalidationSignal, Predicate<AuthorizationSubscription> cacheable) {
+		this.delegate = delegate;
+		this.cacheable = cacheable;
+		this.cache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).recordStats()
+				.build();
+		this.invalidations = invalidationSignal.doOnNext(signal -> invalidateAll())
+				.flatMap(signal -> Mono.delay(RELOAD_SETTLE_DELAY)).subscribe(settled -> invalidateAll());
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		if (!cacheable.test(authzSubscription)) {
+			return delegate.decide(authzSubscription);
+		}
+		// look up the cache on subscription, so re-subscribing never replays an expired
+		// decision and only subscribed fluxes count as hits
+		return Flux.defer(() -> {
+			var cachedDecision = cache.getIfPresent(authzSubscription);
+			var decisions = delegate.decide(authzSubscription)
+					.doOnNext(decision -> cache.put(authzSubscription, decision));
+			if (cachedDecision == null) {
+				return decisions;
+			}
+			return decisions.startWith(cachedDecision).distinctUntilChanged();
+		});
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decide(multiAuthzSubscription);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decideAll(multiAuthzSubscription);
+	}
+
+	/**
+	 * Drops all cached decisions.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * @return a snapshot of the hit and miss counters of the cache.
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * Stops listening to the invalidation signal. The delegate is not disposed.
+	 */
+	public void dispose() {
+		invalidations.dispose();
+		cache.invalidateAll();
+	}
+
+}
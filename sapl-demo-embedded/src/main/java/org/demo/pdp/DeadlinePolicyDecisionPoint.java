@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.util.function.Function;
+
+import org.demo.deadline.DeadlineBudget;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link PolicyDecisionPoint} decorator which bounds the time to the first
+ * decision, e.g., to keep authorization within the latency budget of a
+ * request.
+ * 
+ * If the delegate does not decide within the budget, INDETERMINATE is emitted,
+ * so one-shot consumers using {@code .blockFirst()} or {@code .take(1)} return
+ * in time and deny access. Streaming consumers then receive the late decision
+ * and all following updates from the same evaluation, which stays subscribed
+ * until the consumer cancels, instead of starting it over. Each miss is counted
+ * in the budget
+ * under a key derived from the subscription, e.g., its action, as the
+ * decisions of the embedded PDP do not name the policies they were derived
+ * from.
+ * 
+ * Multi-subscriptions are passed through to the delegate.
+ */
+public class DeadlinePolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	private final DeadlineBudget budget;
+
+	private final Function<AuthorizationSubscription, String> missKey;
+
+	/**
+	 * Creates a new {@code DeadlinePolicyDecisionPoint} counting misses by the
+	 * action of the subscription.
+	 * @param delegate the PDP evaluating the subscriptions.
+	 * @param budget the time budget and the miss counters.
+	 */
+	public DeadlinePolicyDecisionPoint(PolicyDecisionPoint delegate, DeadlineBudget budget) {
+		this(delegate, budget, subscription -> "action " + subscription.getAction());
+	}
+
+	/**
+	 * Creates a new {@code DeadlinePolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the subscriptions.
+	 * @param budget the time budget and the miss counters.
+	 * @param missKey derives the key a miss is counted under from the
+	 * subscription, e.g., the name of the policy responsible for it.
+	 */
+	public DeadlinePolicyDecisionPoint(PolicyDecisionPoint delegate, DeadlineBudget budget,
+			Function<AuthorizationSubscription, String> missKey) {
+		this.delegate = delegate;
+		this.budget = budget;
+		this.missKey = missKey;
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		return Flux.defer(() -> {
+			budget.recordDecision();
+			// the timed and the continuing subscriber share one evaluation, which outlives
+			// the cancellation by the timeout and replays a decision racing with it
+			var connection = Disposables.swap();
+			var decisions = delegate.decide(authzSubscription).replay(1).autoConnect(1, connection::update);
+			// only the first decision is bounded, the timeout operator decides atomically
+			// between it and the fallback, so INDETERMINATE never follows a real decision
+			var missed = Flux.defer(() -> {
+				budget.recordMiss(missKey.apply(authzSubscription));
+				return Flux.just(AuthorizationDecision.INDETERMINATE).concatWith(decisions);
+			});
+			return decisions.timeout(Mono.delay(budget.getBudget()), decision -> Mono.never(), missed)
+					.doFinally(signal -> connection.dispose());
+		});
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decide(multiAuthzSubscription);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decideAll(multiAuthzSubscription);
+	}
+
+}
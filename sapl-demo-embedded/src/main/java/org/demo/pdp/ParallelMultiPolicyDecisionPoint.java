@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import org.demo.multi.MultiSubscriptions;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A {@link PolicyDecisionPoint} decorator which evaluates the entries of a
+ * multi-subscription in parallel.
+ * 
+ * Each entry is decided as a single subscription by the delegate, subscribed
+ * to on the given scheduler. With the default parallel scheduler, whose number
+ * of threads is bounded by the number of cores, the entries are spread over all
+ * cores. All entries stay subscribed, so updates of any entry are emitted as
+ * they occur. {@code decideAll} emits a {@link MultiAuthorizationDecision} as
+ * soon as every entry is decided and again whenever a decision changes.
+ * 
+ * Single subscriptions are passed through to the delegate.
+ */
+public class ParallelMultiPolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	private final Scheduler scheduler;
+
+	/**
+	 * Creates a new {@code ParallelMultiPolicyDecisionPoint} evaluating on the
+	 * parallel scheduler.
+	 * @param delegate the PDP evaluating the entries.
+	 */
+	public ParallelMultiPolicyDecisionPoint(PolicyDecisionPoint delegate) {
+		this(delegate, Schedulers.parallel());
+	}
+
+	/**
+	 * Creates a new {@code ParallelMultiPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the entries.
+	 * @param scheduler the scheduler the entries are evaluated on.
+	 */
+	public ParallelMultiPolicyDecisionPoint(PolicyDecisionPoint delegate, Scheduler scheduler) {
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		return delegate.decide(authzSubscription);
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return MultiSubscriptions.decide(multiAuthzSubscription, this::decideOnScheduler);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return MultiSubscriptions.decideAll(multiAuthzSubscription, this::decideOnScheduler);
+	}
+
+	private Flux<AuthorizationDecision> decideOnScheduler(AuthorizationSubscription authzSubscription) {
+		return delegate.decide(authzSubscription).subscribeOn(scheduler);
+	}
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.nio.file.Path;
+
+/**
+ * A change of a single file of a filesystem policy store, i.e., a '*.sapl'
+ * document or the 'pdp.json' configuration.
+ */
+public class PolicyStoreChange {
+
+	/**
+	 * The kinds of changes reported for a file.
+	 */
+	public enum Type {
+		ADDED, MODIFIED, DELETED
+	}
+
+	private final Type type;
+
+	private final Path file;
+
+	private final long timestamp;
+
+	/**
+	 * Creates a new {@code PolicyStoreChange}.
+	 * @param type the kind of change.
+	 * @param file the changed file.
+	 * @param timestamp the value of {@link System#nanoTime()} when the change was
+	 * observed.
+	 */
+	public PolicyStoreChange(Type type, Path file, long timestamp) {
+		this.type = type;
+		this.file = file;
+		this.timestamp = timestamp;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + file.getFileName();
+	}
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Reports per-file changes of a filesystem policy store based on the
+ * {@link WatchService} of the filesystem. Only '*.sapl' documents and the
+ * 'pdp.json' configuration are reported, other files in the directory are
+ * ignored.
+ */
+public final class PolicyStoreWatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PolicyStoreWatcher.class);
+
+	private static final String POLICY_FILE_EXTENSION = ".sapl";
+	private static final String PDP_CONFIGURATION = "pdp.json";
+
+	private PolicyStoreWatcher() {
+		// utility class
+	}
+
+	/**
+	 * Watches the given directory. The directory is watched by a single daemon
+	 * thread while at least one subscriber is present.
+	 * @param directory the directory of the policy store.
+	 * @return a hot stream of the changes of the policy store.
+	 */
+	public static Flux<PolicyStoreChange> watch(Path directory) {
+		return Flux.<PolicyStoreChange>create(sink -> {
+			WatchService watchService;
+			try {
+				watchService = directory.getFileSystem().newWatchService();
+				directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+			} catch (IOException e) {
+				sink.error(e);
+				return;
+			}
+			var thread = new Thread(() -> poll(directory, watchService, sink), "policy-store-watcher");
+			thread.setDaemon(true);
+			sink.onDispose(() -> {
+				thread.interrupt();
+				close(watchService);
+			});
+			thread.start();
+		}).share();
+	}
+
+	private static void poll(Path directory, WatchService watchService, FluxSink<PolicyStoreChange> sink) {
+		while (!Thread.currentThread().isInterrupted()) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+			for (WatchEvent<?> event : key.pollEvents()) {
+				var type = typeOf(event.kind());
+				if (type != null) {
+					var file = directory.resolve((Path) event.context());
+					if (isPolicyStoreFile(file)) {
+						sink.next(new PolicyStoreChange(type, file, System.nanoTime()));
+					}
+				}
+			}
+			if (!key.reset()) {
+				sink.complete();
+				return;
+			}
+		}
+	}
+
+	private static PolicyStoreChange.Type typeOf(WatchEvent.Kind<?> kind) {
+		if (kind == ENTRY_CREATE) {
+			return PolicyStoreChange.Type.ADDED;
+		} else if (kind == ENTRY_MODIFY) {
+			return PolicyStoreChange.Type.MODIFIED;
+		} else if (kind == ENTRY_DELETE) {
+			return PolicyStoreChange.Type.DELETED;
+		}
+		// OVERFLOW, events have been lost
+		return null;
+	}
+
+	private static boolean isPolicyStoreFile(Path file) {
+		var name = file.getFileName().toString();
+		return name.endsWith(POLICY_FILE_EXTENSION) || PDP_CONFIGURATION.equals(name);
+	}
+
+	private static void close(WatchService watchService) {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close the policy store watch service: {}", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.demo.recording.SubscriptionLogWriter;
+import org.demo.recording.SubscriptionRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.publisher.Flux;
+
+/**
+ * A {@link PolicyDecisionPoint} decorator which records the authorization
+ * subscriptions of real traffic for replaying them later, e.g., to compare the
+ * performance and the decisions of a new PDP version.
+ * 
+ * Each subscription is appended to a subscription log with the time it was
+ * made and the first decision of the delegate. Subscriptions cancelled before
+ * the first decision are recorded without a decision. Failing writes are
+ * logged and do not affect the decisions.
+ * 
+ * Multi-subscriptions are passed through to the delegate without recording.
+ */
+public class RecordingPolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecordingPolicyDecisionPoint.class);
+
+	private final PolicyDecisionPoint delegate;
+
+	private final SubscriptionLogWriter log;
+
+	/**
+	 * Creates a new {@code RecordingPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the subscriptions.
+	 * @param log the log the subscriptions are appended to. It is not closed by
+	 * this decorator.
+	 */
+	public RecordingPolicyDecisionPoint(PolicyDecisionPoint delegate, SubscriptionLogWriter log) {
+		this.delegate = delegate;
+		this.log = log;
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		return Flux.defer(() -> {
+			long timestampMicros = nowMicros();
+			var recorded = new AtomicBoolean();
+			return delegate.decide(authzSubscription).doOnNext(decision -> {
+				if (recorded.compareAndSet(false, true)) {
+					record(timestampMicros, authzSubscription, decision);
+				}
+			}).doFinally(signal -> {
+				if (recorded.compareAndSet(false, true)) {
+					record(timestampMicros, authzSubscription, null);
+				}
+			});
+		});
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decide(multiAuthzSubscription);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decideAll(multiAuthzSubscription);
+	}
+
+	private void record(long timestampMicros, AuthorizationSubscription authzSubscription,
+			AuthorizationDecision decision) {
+		try {
+			log.append(new SubscriptionRecord(timestampMicros, authzSubscription,
+					decision == null ? null : SubscriptionRecord.toJson(decision)));
+		} catch (IOException e) {
+			LOGGER.warn("Subscription could not be recorded: {}", e.getMessage());
+		}
+	}
+
+	private static long nowMicros() {
+		var now = Instant.now();
+		return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+	}
+
+}
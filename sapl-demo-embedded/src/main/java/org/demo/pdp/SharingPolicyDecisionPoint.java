@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.pdp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.publisher.Flux;
+
+/**
+ * A {@link PolicyDecisionPoint} decorator which shares one evaluation of the
+ * delegate between all concurrent subscribers of the same authorization
+ * subscription.
+ * 
+ * Subscriptions are compared by the structural equality of their JSON values,
+ * i.e., equal subscriptions built independently by different callers share the
+ * same upstream. The first subscriber connects to the delegate, later
+ * subscribers immediately receive the latest decision and all following
+ * updates. When the last subscriber cancels, the upstream, including its PIP
+ * subscriptions, is torn down and the subscription is forgotten.
+ * 
+ * A subscriber arriving while the last one leaves may connect a second upstream
+ * for the same subscription. Both deliver correct decisions; the sharing of
+ * the next subscribers is only restored once the older one is torn down.
+ * 
+ * Multi-subscriptions are passed through to the delegate.
+ */
+public class SharingPolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	private final ConcurrentMap<AuthorizationSubscription, Flux<AuthorizationDecision>> upstreams =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@code SharingPolicyDecisionPoint}.
+	 * @param delegate the PDP evaluating the shared subscriptions.
+	 */
+	public SharingPolicyDecisionPoint(PolicyDecisionPoint delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		return Flux.defer(() -> upstreams.computeIfAbsent(authzSubscription, this::share));
+	}
+
+	private Flux<AuthorizationDecision> share(AuthorizationSubscription authzSubscription) {
+		var shared = new AtomicReference<Flux<AuthorizationDecision>>();
+		shared.set(delegate.decide(authzSubscription)
+				.doFinally(signal -> upstreams.remove(authzSubscription, shared.get())).replay(1).refCount());
+		return shared.get();
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decide(multiAuthzSubscription);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decideAll(multiAuthzSubscription);
+	}
+
+	/**
+	 * @return the number of subscriptions with a connected upstream.
+	 */
+	public int sharedSubscriptions() {
+		return upstreams.size();
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.profiling;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * Accumulates evaluation times and invocation counts per profiled element,
+ * e.g., a PIP attribute, a function or a policy statement. Recording is
+ * thread-safe.
+ */
+public class EvaluationProfiler {
+
+	private static final double NANOS_PER_MILLI = 1_000_000.0D;
+	private static final double NANOS_PER_MICRO = 1_000.0D;
+	private static final DecimalFormat decFormat = new DecimalFormat("#.###");
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Records a single invocation.
+	 * @param element the profiled element.
+	 * @param nanos the time spent in the invocation.
+	 */
+	public void record(String element, long nanos) {
+		record(element, nanos, 1L);
+	}
+
+	/**
+	 * Records several invocations at once.
+	 * @param element the profiled element.
+	 * @param nanos the accumulated time spent in the invocations.
+	 * @param invocations the number of invocations.
+	 */
+	public void record(String element, long nanos, long invocations) {
+		var entry = entries.computeIfAbsent(element, key -> new Entry());
+		entry.totalNanos.add(nanos);
+		entry.invocations.add(invocations);
+	}
+
+	/**
+	 * Drops all recorded invocations.
+	 */
+	public void reset() {
+		entries.clear();
+	}
+
+	/**
+	 * Logs all profiled elements sorted by their cumulative time, most expensive
+	 * first.
+	 * @param logger the logger to write to.
+	 * @param title the title of the report.
+	 */
+	public void report(Logger logger, String title) {
+		List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+		sorted.sort(Comparator.comparingLong(
+				(Map.Entry<String, Entry> element) -> element.getValue().totalNanos.sum()).reversed());
+		logger.info(title);
+		logger.info(String.format("%12s %12s %12s  %s", "total ms", "calls", "mean us", "element"));
+		for (var element : sorted) {
+			long totalNanos = element.getValue().totalNanos.sum();
+			long invocations = element.getValue().invocations.sum();
+			logger.info(String.format("%12s %12d %12s  %s", decFormat.format(totalNanos / NANOS_PER_MILLI),
+					invocations,
+					decFormat.format(invocations == 0 ? 0.0D : totalNanos / NANOS_PER_MICRO / invocations),
+					element.getKey()));
+		}
+	}
+
+	private static class Entry {
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final LongAdder invocations = new LongAdder();
+
+	}
+
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Derives truncated variants of a policy document for differential profiling.
+ * For a policy with n statements in its where-block the variants are:
+ * 
+ * <ol>
+ * <li>the policy with its target only,</li>
+ * <li>the policy with the first k statements of its where-block, for k = 1 to
+ * n,</li>
+ * <li>the complete policy including obligations, advice and transformation.
+ * </li>
+ * </ol>
+ * 
+ * The difference in evaluation time between two consecutive variants is the
+ * cost of the element added by the latter one. As statements are evaluated
+ * lazily, a statement following a statement which evaluates to false does not
+ * add any cost.
+ * 
+ * The document is split by a lightweight scanner which skips strings and
+ * comments and only considers semicolons outside of brackets as the end of a
+ * statement. Policy sets are not split.
+ */
+public final class PolicyDocumentVariants {
+
+	private static final String WHERE = "where";
+	private static final String POLICY_SET = "set";
+	private static final Set<String> SECTIONS = Set.of("obligation", "advice", "transform");
+	private static final int MAX_LABEL_LENGTH = 60;
+
+	private PolicyDocumentVariants() {
+		// utility class
+	}
+
+	/**
+	 * A variant of a policy document.
+	 */
+	public static class Variant {
+
+		private final String element;
+
+		private final String source;
+
+		Variant(String element, String source) {
+			this.element = element;
+			this.source = source;
+		}
+
+		/**
+		 * @return a description of the element added by this variant.
+		 */
+		public String getElement() {
+			return element;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+	}
+
+	/**
+	 * Splits a policy document into its variants.
+	 * @param name the name of the document used in the element descriptions.
+	 * @param source the SAPL source of the document.
+	 * @return the variants in ascending order, or an empty list for a policy set.
+	 */
+	public static List<Variant> of(String name, String source) {
+		int whereStart = -1;
+		int sectionStart = source.length();
+		List<Integer> statementEnds = new ArrayList<>();
+		int depth = 0;
+		int i = 0;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (c == '"') {
+				i = skipString(source, i);
+			} else if (source.startsWith("//", i)) {
+				i = skipTo(source, i, "\n");
+			} else if (source.startsWith("/*", i)) {
+				i = skipTo(source, i, "*/");
+			} else if (c == '(' || c == '[' || c == '{') {
+				depth++;
+				i++;
+			} else if (c == ')' || c == ']' || c == '}') {
+				depth--;
+				i++;
+			} else if (c == ';' && depth == 0 && whereStart >= 0) {
+				statementEnds.add(i);
+				i++;
+			} else if (Character.isJavaIdentifierStart(c)) {
+				int end = i;
+				while (end < source.length() && Character.isJavaIdentifierPart(source.charAt(end))) {
+					end++;
+				}
+				var word = source.substring(i, end);
+				if (depth == 0 && isKeyword(source, i)) {
+					if (POLICY_SET.equals(word) && whereStart < 0 && statementEnds.isEmpty()) {
+						return List.of();
+					} else if (WHERE.equals(word) && whereStart < 0) {
+						whereStart = i;
+					} else if (SECTIONS.contains(word)) {
+						sectionStart = i;
+						break;
+					}
+				}
+				i = end;
+			} else {
+				i++;
+			}
+		}
+
+		List<Variant> variants = new ArrayList<>();
+		int headEnd = whereStart >= 0 ? whereStart : sectionStart;
+		variants.add(new Variant(name + " target", source.substring(0, headEnd)));
+		int previousEnd = whereStart + WHERE.length();
+		for (int k = 0; k < statementEnds.size(); k++) {
+			int end = statementEnds.get(k);
+			var statement = source.substring(previousEnd, end).strip().replaceAll("\\s+", " ");
+			variants.add(new Variant(name + " where #" + (k + 1) + ": " + abbreviate(statement),
+					source.substring(0, end + 1)));
+			previousEnd = end + 1;
+		}
+		if (sectionStart < source.length()) {
+			variants.add(new Variant(name + " obligation/advice/transform", source));
+		}
+		return variants;
+	}
+
+	private static boolean isKeyword(String source, int start) {
+		// an identifier preceded by a dot is a key step, e.g., 'subject.where'
+		int previous = start - 1;
+		while (previous >= 0 && Character.isWhitespace(source.charAt(previous))) {
+			previous--;
+		}
+		return previous < 0 || source.charAt(previous) != '.';
+	}
+
+	private static int skipString(String source, int start) {
+		int i = start + 1;
+		while (i < source.length() && source.charAt(i) != '"') {
+			i += source.charAt(i) == '\\' ? 2 : 1;
+		}
+		return i + 1;
+	}
+
+	private static int skipTo(String source, int start, String terminator) {
+		int end = source.indexOf(terminator, start + 2);
+		return end < 0 ? source.length() : end + terminator.length();
+	}
+
+	private static String abbreviate(String statement) {
+		return statement.length() <= MAX_LABEL_LENGTH ? statement
+				: statement.substring(0, MAX_LABEL_LENGTH - 3) + "...";
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.profiling;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Reads the sources of the '*.sapl' documents of a policy store.
+ */
+public final class PolicySources {
+
+	private static final String BUNDLED_POLICIES = "/policies";
+	private static final String POLICY_FILE_EXTENSION = ".sapl";
+
+	private PolicySources() {
+		// utility class
+	}
+
+	/**
+	 * Reads the documents of a filesystem policy store, or the policies bundled
+	 * with the demo if no directory is given.
+	 * @param directory the directory of the policy store, or {@code null}.
+	 * @return the sources of the documents by their file name.
+	 * @throws IOException if the documents cannot be read.
+	 */
+	public static Map<String, String> load(Path directory) throws IOException {
+		if (directory != null) {
+			return read(directory);
+		}
+		try {
+			var uri = PolicySources.class.getResource(BUNDLED_POLICIES).toURI();
+			if ("jar".equals(uri.getScheme())) {
+				try (var jar = FileSystems.newFileSystem(uri, Map.of())) {
+					return read(jar.getPath(BUNDLED_POLICIES));
+				}
+			}
+			return read(Path.of(uri));
+		} catch (URISyntaxException e) {
+			throw new IOException("Cannot locate the bundled policies.", e);
+		}
+	}
+
+	private static Map<String, String> read(Path directory) throws IOException {
+		Map<String, String> sources = new TreeMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (var file : (Iterable<Path>) files::iterator) {
+				var name = file.getFileName().toString();
+				if (name.endsWith(POLICY_FILE_EXTENSION)) {
+					sources.put(name, Files.readString(file, StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return sources;
+	}
+
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.profiling;
+
+import java.util.Map;
+
+import org.demo.EchoPIP;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.sapl.api.interpreter.Val;
+import io.sapl.api.pip.Attribute;
+import io.sapl.api.pip.PolicyInformationPoint;
+import io.sapl.api.validation.Text;
+import reactor.core.publisher.Flux;
+
+/**
+ * The {@link EchoPIP} recording the time from the subscription to an attribute
+ * until each value is emitted.
+ */
+@PolicyInformationPoint(name = "echo", description = "PIP echoing the input value")
+public class ProfiledEchoPIP extends EchoPIP {
+
+	private final EvaluationProfiler profiler;
+
+	public ProfiledEchoPIP(EvaluationProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	@Override
+	@Attribute(name = "echo")
+	public Flux<Val> echo(@Text Val value, Map<String, JsonNode> variables) {
+		return Flux.defer(() -> {
+			long start = System.nanoTime();
+			return super.echo(value, variables)
+					.doOnNext(echoed -> profiler.record("attribute <echo.echo>", System.nanoTime() - start));
+		});
+	}
+
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.profiling;
+
+import org.demo.SimpleFunctionLibrary;
+
+import io.sapl.api.functions.Function;
+import io.sapl.api.functions.FunctionException;
+import io.sapl.api.functions.FunctionLibrary;
+import io.sapl.api.interpreter.Val;
+import io.sapl.api.validation.Number;
+import io.sapl.api.validation.Text;
+
+/**
+ * The {@link SimpleFunctionLibrary} recording the time spent in each function
+ * call.
+ */
+@FunctionLibrary(name = "simple", description = "some simple functions")
+public class ProfiledSimpleFunctionLibrary extends SimpleFunctionLibrary {
+
+	private final EvaluationProfiler profiler;
+
+	public ProfiledSimpleFunctionLibrary(EvaluationProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	@Override
+	@Function
+	public Val length(Val parameter) throws FunctionException {
+		long start = System.nanoTime();
+		try {
+			return super.length(parameter);
+		} finally {
+			profiler.record("function simple.length", System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	@Function
+	public Val append(@Text @Number Val... parameters) throws FunctionException {
+		long start = System.nanoTime();
+		try {
+			return super.append(parameters);
+		} finally {
+			profiler.record("function simple.append", System.nanoTime() - start);
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+
+/**
+ * Reads the records of a subscription log written by a
+ * {@link SubscriptionLogWriter} one after the other.
+ * 
+ * The file is read through a memory-mapped window which is moved along the
+ * file, so logs of several gigabytes are read without loading them into the
+ * heap. An incomplete last record, e.g., of a process killed while recording,
+ * is ignored.
+ */
+public class SubscriptionLogReader implements Closeable {
+
+	private static final long WINDOW_SIZE = 64L * 1024L * 1024L;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final FileChannel channel;
+
+	private final long size;
+
+	private final long windowSize;
+
+	private MappedByteBuffer window;
+
+	private long windowStart;
+
+	/**
+	 * Opens a subscription log for reading.
+	 * @param file the log file.
+	 * @throws IOException if the file cannot be opened or is not a subscription
+	 * log.
+	 */
+	public SubscriptionLogReader(Path file) throws IOException {
+		this(file, WINDOW_SIZE);
+	}
+
+	/**
+	 * Opens a subscription log for reading through a window of the given size,
+	 * e.g., a small one for testing records spanning windows.
+	 */
+	SubscriptionLogReader(Path file, long windowSize) throws IOException {
+		this.windowSize = windowSize;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		size = channel.size();
+		if (!ensure(0L, HEADER_SIZE) || window.getInt() != SubscriptionLogWriter.MAGIC) {
+			channel.close();
+			throw new IOException(file + " is not a subscription log.");
+		}
+		int version = window.getInt();
+		if (version != SubscriptionLogWriter.VERSION) {
+			channel.close();
+			throw new IOException("Unsupported subscription log version " + version + " in " + file + ".");
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 * @return the record, or {@code null} at the end of the log.
+	 * @throws IOException if the record cannot be read.
+	 */
+	public SubscriptionRecord next() throws IOException {
+		long position = position();
+		if (!ensure(position, RECORD_HEADER_SIZE)) {
+			return null;
+		}
+		long timestampMicros = window.getLong();
+		int subscriptionLength = window.getInt();
+		if (!ensure(position, RECORD_HEADER_SIZE + subscriptionLength + Integer.BYTES)) {
+			return null;
+		}
+		window.position(window.position() + RECORD_HEADER_SIZE);
+		var subscription = MAPPER.readValue(bytes(subscriptionLength), AuthorizationSubscription.class);
+		int decisionLength = window.getInt();
+		if (!ensure(position, RECORD_HEADER_SIZE + subscriptionLength + Integer.BYTES + decisionLength)) {
+			return null;
+		}
+		window.position(window.position() + RECORD_HEADER_SIZE + subscriptionLength + Integer.BYTES);
+		var decision = decisionLength == 0 ? null : MAPPER.readTree(bytes(decisionLength));
+		return new SubscriptionRecord(timestampMicros, subscription, decision);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private long position() {
+		return windowStart + window.position();
+	}
+
+	/**
+	 * Makes sure the window covers the given range of the file and positions it
+	 * at the start of the range.
+	 * @return false, if the file ends within the range.
+	 */
+	private boolean ensure(long start, long length) throws IOException {
+		if (start + length > size) {
+			return false;
+		}
+		if (window == null || start < windowStart || start + length > windowStart + window.limit()) {
+			windowStart = start;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+					Math.min(size - start, Math.max(windowSize, length)));
+		}
+		window.position((int) (start - windowStart));
+		return true;
+	}
+
+	private byte[] bytes(int length) {
+		var bytes = new byte[length];
+		window.get(bytes);
+		return bytes;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.recording;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends {@link SubscriptionRecord}s to a subscription log file.
+ * 
+ * The file starts with a magic number and a format version. Each record
+ * consists of the timestamp in microseconds since the epoch, followed by the
+ * length-prefixed compact JSON of the subscription and of the decision, where
+ * a length of 0 stands for a missing decision. An existing file is continued.
+ * 
+ * The writer is thread-safe. Records are buffered and only guaranteed to be in
+ * the file after {@link #flush()} or {@link #close()}.
+ */
+public class SubscriptionLogWriter implements Closeable {
+
+	static final int MAGIC = 0x5341504C; // "SAPL"
+	static final int VERSION = 1;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final DataOutputStream out;
+
+	/**
+	 * Opens a subscription log for appending.
+	 * @param file the log file, which is created if it does not exist.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public SubscriptionLogWriter(Path file) throws IOException {
+		boolean empty = !Files.exists(file) || Files.size(file) == 0L;
+		out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+		if (empty) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+	}
+
+	/**
+	 * Appends a record.
+	 * @param record the record.
+	 * @throws IOException if the record cannot be written.
+	 */
+	public void append(SubscriptionRecord record) throws IOException {
+		var subscription = MAPPER.writeValueAsBytes(record.getSubscription());
+		var decision = record.getDecision() == null ? new byte[0] : MAPPER.writeValueAsBytes(record.getDecision());
+		synchronized (out) {
+			out.writeLong(record.getTimestampMicros());
+			out.writeInt(subscription.length);
+			out.write(subscription);
+			out.writeInt(decision.length);
+			out.write(decision);
+		}
+	}
+
+	/**
+	 * Writes all buffered records to the file.
+	 * @throws IOException if the records cannot be written.
+	 */
+	public void flush() throws IOException {
+		synchronized (out) {
+			out.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (out) {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.recording;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+
+/**
+ * An authorization subscription captured by a {@link SubscriptionLogWriter},
+ * together with the time it was made and the first decision returned for it.
+ * 
+ * The decision is kept as JSON, as produced by {@link #toJson}, so that it can
+ * be compared with the decision of a replay without depending on the equality
+ * of {@link AuthorizationDecision}.
+ */
+public final class SubscriptionRecord {
+
+	private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+	private final long timestampMicros;
+
+	private final AuthorizationSubscription subscription;
+
+	private final JsonNode decision;
+
+	/**
+	 * Creates a new {@code SubscriptionRecord}.
+	 * @param timestampMicros the time of the subscription in microseconds since
+	 * the epoch.
+	 * @param subscription the authorization subscription.
+	 * @param decision the first decision as JSON, or {@code null} if none was
+	 * returned.
+	 */
+	public SubscriptionRecord(long timestampMicros, AuthorizationSubscription subscription, JsonNode decision) {
+		this.timestampMicros = timestampMicros;
+		this.subscription = subscription;
+		this.decision = decision;
+	}
+
+	public long getTimestampMicros() {
+		return timestampMicros;
+	}
+
+	public AuthorizationSubscription getSubscription() {
+		return subscription;
+	}
+
+	public JsonNode getDecision() {
+		return decision;
+	}
+
+	/**
+	 * Converts a decision into its JSON representation in a record.
+	 * @param authzDecision the decision.
+	 * @return the decision as JSON.
+	 */
+	public static JsonNode toJson(AuthorizationDecision authzDecision) {
+		var json = JSON.objectNode();
+		json.put("decision", authzDecision.getDecision().name());
+		authzDecision.getResource().ifPresent(resource -> json.set("resource", resource));
+		authzDecision.getObligations().ifPresent(obligations -> json.set("obligations", obligations));
+		authzDecision.getAdvices().ifPresent(advices -> json.set("advices", advices));
+		return json;
+	}
+
+}
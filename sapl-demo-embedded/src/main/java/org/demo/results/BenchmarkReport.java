@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.results;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The results of all scenarios of one benchmark run together with the JVM they
+ * were measured on.
+ */
+public class BenchmarkReport {
+
+	private String timestamp;
+
+	private String javaVersion;
+
+	private String jvm;
+
+	private int availableProcessors;
+
+	private long maxHeapBytes;
+
+	private List<String> garbageCollectors = new ArrayList<>();
+
+	private List<String> jvmArguments = new ArrayList<>();
+
+	private List<BenchmarkResult> results = new ArrayList<>();
+
+	/**
+	 * Creates a report for the given results describing the running JVM.
+	 * @param results the results of the scenarios.
+	 * @return the report.
+	 */
+	public static BenchmarkReport of(List<BenchmarkResult> results) {
+		var runtime = ManagementFactory.getRuntimeMXBean();
+		var report = new BenchmarkReport();
+		report.setTimestamp(Instant.now().toString());
+		report.setJavaVersion(System.getProperty("java.version"));
+		report.setJvm(runtime.getVmVendor() + " " + runtime.getVmName() + " " + runtime.getVmVersion());
+		report.setAvailableProcessors(Runtime.getRuntime().availableProcessors());
+		report.setMaxHeapBytes(Runtime.getRuntime().maxMemory());
+		report.setGarbageCollectors(ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.map(GarbageCollectorMXBean::getName).collect(Collectors.toList()));
+		report.setJvmArguments(runtime.getInputArguments());
+		report.setResults(new ArrayList<>(results));
+		return report;
+	}
+
+	public String getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(String timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public String getJavaVersion() {
+		return javaVersion;
+	}
+
+	public void setJavaVersion(String javaVersion) {
+		this.javaVersion = javaVersion;
+	}
+
+	public String getJvm() {
+		return jvm;
+	}
+
+	public void setJvm(String jvm) {
+		this.jvm = jvm;
+	}
+
+	public int getAvailableProcessors() {
+		return availableProcessors;
+	}
+
+	public void setAvailableProcessors(int availableProcessors) {
+		this.availableProcessors = availableProcessors;
+	}
+
+	public long getMaxHeapBytes() {
+		return maxHeapBytes;
+	}
+
+	public void setMaxHeapBytes(long maxHeapBytes) {
+		this.maxHeapBytes = maxHeapBytes;
+	}
+
+	public List<String> getGarbageCollectors() {
+		return garbageCollectors;
+	}
+
+	public void setGarbageCollectors(List<String> garbageCollectors) {
+		this.garbageCollectors = garbageCollectors;
+	}
+
+	public List<String> getJvmArguments() {
+		return jvmArguments;
+	}
+
+	public void setJvmArguments(List<String> jvmArguments) {
+		this.jvmArguments = jvmArguments;
+	}
+
+	public List<BenchmarkResult> getResults() {
+		return results;
+	}
+
+	public void setResults(List<BenchmarkResult> results) {
+		this.results = results;
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.results;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Reads and writes benchmark reports. The format is chosen by the file
+ * extension: '.csv' files contain one row per scenario, all other files are
+ * written as JSON.
+ */
+public final class BenchmarkReports {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	private static final String CSV_EXTENSION = ".csv";
+	private static final String CSV_SEPARATOR = ",";
+	private static final String LIST_SEPARATOR = "|";
+	private static final String[] CSV_COLUMNS = { "timestamp", "javaVersion", "garbageCollectors", "scenario",
+			"operations", "decisionsPerOperation", "totalSeconds", "throughput", "meanMs", "p50Ms", "p90Ms", "p99Ms",
+			"p999Ms", "maxMs", "allocatedBytesPerOperation", "allocatedBytesPerDecision", "gcCount", "gcTimeMs" };
+
+	private BenchmarkReports() {
+		// utility class
+	}
+
+	public static void write(BenchmarkReport report, Path file) throws IOException {
+		if (isCsv(file)) {
+			Files.write(file, toCsv(report), StandardCharsets.UTF_8);
+		} else {
+			MAPPER.writeValue(file.toFile(), report);
+		}
+	}
+
+	public static BenchmarkReport read(Path file) throws IOException {
+		if (isCsv(file)) {
+			return fromCsv(Files.readAllLines(file, StandardCharsets.UTF_8));
+		}
+		return MAPPER.readValue(file.toFile(), BenchmarkReport.class);
+	}
+
+	private static boolean isCsv(Path file) {
+		return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(CSV_EXTENSION);
+	}
+
+	private static List<String> toCsv(BenchmarkReport report) {
+		List<String> lines = new ArrayList<>();
+		lines.add(String.join(CSV_SEPARATOR, CSV_COLUMNS));
+		var garbageCollectors = String.join(LIST_SEPARATOR, report.getGarbageCollectors());
+		for (var result : report.getResults()) {
+			lines.add(String.join(CSV_SEPARATOR, report.getTimestamp(), report.getJavaVersion(), garbageCollectors,
+					result.getScenario(), Integer.toString(result.getOperations()),
+					Integer.toString(result.getDecisionsPerOperation()), Double.toString(result.getTotalSeconds()),
+					Double.toString(result.getThroughput()), Double.toString(result.getMeanMs()),
+					Double.toString(result.getP50Ms()), Double.toString(result.getP90Ms()),
+					Double.toString(result.getP99Ms()), Double.toString(result.getP999Ms()),
+					Double.toString(result.getMaxMs()), Long.toString(result.getAllocatedBytesPerOperation()),
+					Long.toString(result.getAllocatedBytesPerDecision()), Long.toString(result.getGcCount()),
+					Long.toString(result.getGcTimeMs())));
+		}
+		return lines;
+	}
+
+	private static BenchmarkReport fromCsv(List<String> lines) throws IOException {
+		if (lines.isEmpty()) {
+			throw new IOException("Empty benchmark result file.");
+		}
+		var header = Arrays.asList(lines.get(0).split(CSV_SEPARATOR));
+		var report = new BenchmarkReport();
+		for (var line : lines.subList(1, lines.size())) {
+			if (line.isBlank()) {
+				continue;
+			}
+			var values = line.split(CSV_SEPARATOR, -1);
+			Map<String, String> row = new HashMap<>();
+			for (int i = 0; i < header.size() && i < values.length; i++) {
+				row.put(header.get(i), values[i]);
+			}
+			report.setTimestamp(row.get("timestamp"));
+			report.setJavaVersion(row.get("javaVersion"));
+			report.setGarbageCollectors(Arrays.asList(row.getOrDefault("garbageCollectors", "").split("\\|")));
+			report.getResults().add(resultOf(row));
+		}
+		return report;
+	}
+
+	private static BenchmarkResult resultOf(Map<String, String> row) {
+		var result = new BenchmarkResult();
+		result.setScenario(row.get("scenario"));
+		result.setOperations(Integer.parseInt(row.getOrDefault("operations", "0")));
+		result.setDecisionsPerOperation(Integer.parseInt(row.getOrDefault("decisionsPerOperation", "1")));
+		result.setTotalSeconds(Double.parseDouble(row.getOrDefault("totalSeconds", "0")));
+		result.setThroughput(Double.parseDouble(row.getOrDefault("throughput", "0")));
+		result.setMeanMs(Double.parseDouble(row.getOrDefault("meanMs", "0")));
+		result.setP50Ms(Double.parseDouble(row.getOrDefault("p50Ms", "0")));
+		result.setP90Ms(Double.parseDouble(row.getOrDefault("p90Ms", "0")));
+		result.setP99Ms(Double.parseDouble(row.getOrDefault("p99Ms", "0")));
+		result.setP999Ms(Double.parseDouble(row.getOrDefault("p999Ms", "0")));
+		result.setMaxMs(Double.parseDouble(row.getOrDefault("maxMs", "0")));
+		result.setAllocatedBytesPerOperation(Long.parseLong(row.getOrDefault("allocatedBytesPerOperation", "-1")));
+		result.setAllocatedBytesPerDecision(Long.parseLong(row.getOrDefault("allocatedBytesPerDecision", "-1")));
+		result.setGcCount(Long.parseLong(row.getOrDefault("gcCount", "0")));
+		result.setGcTimeMs(Long.parseLong(row.getOrDefault("gcTimeMs", "0")));
+		return result;
+	}
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.results;
+
+/**
+ * The measurements of one performance scenario. Latencies are given per
+ * operation in milliseconds. An operation may comprise several decisions,
+ * e.g., when a batch of subscriptions is decided at once.
+ */
+public class BenchmarkResult {
+
+	private String scenario;
+
+	private int operations;
+
+	private int decisionsPerOperation;
+
+	private double totalSeconds;
+
+	private double throughput;
+
+	private double meanMs;
+
+	private double p50Ms;
+
+	private double p90Ms;
+
+	private double p99Ms;
+
+	private double p999Ms;
+
+	private double maxMs;
+
+	private long allocatedBytesPerOperation;
+
+	private long allocatedBytesPerDecision;
+
+	private long gcCount;
+
+	private long gcTimeMs;
+
+	public String getScenario() {
+		return scenario;
+	}
+
+	public void setScenario(String scenario) {
+		this.scenario = scenario;
+	}
+
+	public int getOperations() {
+		return operations;
+	}
+
+	public void setOperations(int operations) {
+		this.operations = operations;
+	}
+
+	public int getDecisionsPerOperation() {
+		return decisionsPerOperation;
+	}
+
+	public void setDecisionsPerOperation(int decisionsPerOperation) {
+		this.decisionsPerOperation = decisionsPerOperation;
+	}
+
+	public double getTotalSeconds() {
+		return totalSeconds;
+	}
+
+	public void setTotalSeconds(double totalSeconds) {
+		this.totalSeconds = totalSeconds;
+	}
+
+	/**
+	 * @return the number of operations per second.
+	 */
+	public double getThroughput() {
+		return throughput;
+	}
+
+	public void setThroughput(double throughput) {
+		this.throughput = throughput;
+	}
+
+	public double getMeanMs() {
+		return meanMs;
+	}
+
+	public void setMeanMs(double meanMs) {
+		this.meanMs = meanMs;
+	}
+
+	public double getP50Ms() {
+		return p50Ms;
+	}
+
+	public void setP50Ms(double p50Ms) {
+		this.p50Ms = p50Ms;
+	}
+
+	public double getP90Ms() {
+		return p90Ms;
+	}
+
+	public void setP90Ms(double p90Ms) {
+		this.p90Ms = p90Ms;
+	}
+
+	public double getP99Ms() {
+		return p99Ms;
+	}
+
+	public void setP99Ms(double p99Ms) {
+		this.p99Ms = p99Ms;
+	}
+
+	public double getP999Ms() {
+		return p999Ms;
+	}
+
+	public void setP999Ms(double p999Ms) {
+		this.p999Ms = p999Ms;
+	}
+
+	public double getMaxMs() {
+		return maxMs;
+	}
+
+	public void setMaxMs(double maxMs) {
+		this.maxMs = maxMs;
+	}
+
+	/**
+	 * @return the bytes allocated on the heap per operation, or -1 if the JVM
+	 * does not support measuring allocations.
+	 */
+	public long getAllocatedBytesPerOperation() {
+		return allocatedBytesPerOperation;
+	}
+
+	public void setAllocatedBytesPerOperation(long allocatedBytesPerOperation) {
+		this.allocatedBytesPerOperation = allocatedBytesPerOperation;
+	}
+
+	/**
+	 * @return the bytes allocated on the heap per single decision, or -1 if the
+	 * JVM does not support measuring allocations.
+	 */
+	public long getAllocatedBytesPerDecision() {
+		return allocatedBytesPerDecision;
+	}
+
+	public void setAllocatedBytesPerDecision(long allocatedBytesPerDecision) {
+		this.allocatedBytesPerDecision = allocatedBytesPerDecision;
+	}
+
+	/**
+	 * @return the number of garbage collections during the measurement.
+	 */
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	public void setGcCount(long gcCount) {
+		this.gcCount = gcCount;
+	}
+
+	/**
+	 * @return the accumulated time of the garbage collections during the
+	 * measurement.
+	 */
+	public long getGcTimeMs() {
+		return gcTimeMs;
+	}
+
+	public void setGcTimeMs(long gcTimeMs) {
+		this.gcTimeMs = gcTimeMs;
+	}
+
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.demo.pdp.BlockingPolicyDecisionPoint;
+import org.demo.recording.SubscriptionLogReader;
+import org.demo.recording.SubscriptionRecord;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+
+/**
+ * Warms up a PDP before it serves requests, so the first users after a
+ * deployment do not suffer from the interpreter and the JIT compiler.
+ * 
+ * A set of representative subscriptions, e.g., taken from a subscription log
+ * recorded in production, is decided in rounds. In each round, every thread
+ * decides the whole set, and the threads together keep all cores busy. The
+ * warm-up ends when the mean latency of the rounds is stable or the maximal
+ * duration passed. Only then the warmer reports readiness, e.g., to a
+ * readiness probe.
+ */
+public class PolicyDecisionPointWarmer {
+
+	private final BlockingPolicyDecisionPoint pdp;
+
+	private final List<AuthorizationSubscription> subscriptions;
+
+	private final int threads;
+
+	private final StabilityDetector stability;
+
+	private final Duration maximalDuration;
+
+	private final CompletableFuture<Result> ready = new CompletableFuture<>();
+
+	/**
+	 * Creates a new {@code PolicyDecisionPointWarmer} using one thread per core.
+	 * @param pdp the PDP to warm up.
+	 * @param subscriptions the representative subscriptions.
+	 * @param stability decides when the latency is stable.
+	 * @param maximalDuration the time after which the warm-up ends even if the
+	 * latency is not stable.
+	 */
+	public PolicyDecisionPointWarmer(PolicyDecisionPoint pdp, List<AuthorizationSubscription> subscriptions,
+			StabilityDetector stability, Duration maximalDuration) {
+		this(pdp, subscriptions, stability, maximalDuration, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new {@code PolicyDecisionPointWarmer}.
+	 * @param pdp the PDP to warm up.
+	 * @param subscriptions the representative subscriptions.
+	 * @param stability decides when the latency is stable.
+	 * @param maximalDuration the time after which the warm-up ends even if the
+	 * latency is not stable.
+	 * @param threads the number of threads deciding concurrently.
+	 * @throws IllegalArgumentException if no subscriptions are given.
+	 */
+	public PolicyDecisionPointWarmer(PolicyDecisionPoint pdp, List<AuthorizationSubscription> subscriptions,
+			StabilityDetector stability, Duration maximalDuration, int threads) {
+		if (subscriptions.isEmpty()) {
+			throw new IllegalArgumentException("At least one subscription is required for warming up.");
+		}
+		this.pdp = new BlockingPolicyDecisionPoint(pdp);
+		this.subscriptions = List.copyOf(subscriptions);
+		this.stability = stability;
+		this.maximalDuration = maximalDuration;
+		this.threads = threads;
+	}
+
+	/**
+	 * Loads the distinct subscriptions of a subscription log.
+	 * @param log the subscription log.
+	 * @param limit the maximal number of subscriptions to load.
+	 * @return the subscriptions in the order of their first occurrence.
+	 * @throws IOException if the log cannot be read.
+	 */
+	public static List<AuthorizationSubscription> loadSubscriptions(Path log, int limit) throws IOException {
+		Set<AuthorizationSubscription> subscriptions = new LinkedHashSet<>();
+		try (var reader = new SubscriptionLogReader(log)) {
+			SubscriptionRecord record;
+			while (subscriptions.size() < limit && (record = reader.next()) != null) {
+				subscriptions.add(record.getSubscription());
+			}
+		}
+		return new ArrayList<>(subscriptions);
+	}
+
+	/**
+	 * Runs the warm-up on the calling thread.
+	 * @return the result of the warm-up.
+	 * @throws InterruptedException if interrupted while warming up.
+	 */
+	public Result warmUp() throws InterruptedException {
+		var executor = Executors.newFixedThreadPool(threads);
+		try {
+			long start = System.nanoTime();
+			long end = start + maximalDuration.toNanos();
+			List<Callable<Long>> round = new ArrayList<>(threads);
+			for (int i = 0; i < threads; i++) {
+				int offset = i * subscriptions.size() / threads;
+				round.add(() -> decideAll(offset));
+			}
+			int rounds = 0;
+			double mean;
+			do {
+				long nanos = 0L;
+				for (var thread : executor.invokeAll(round)) {
+					nanos += thread.get();
+				}
+				mean = (double) nanos / ((long) threads * subscriptions.size());
+				rounds++;
+			} while (!stability.add(mean) && System.nanoTime() < end);
+			var result = new Result(rounds, Duration.ofNanos(System.nanoTime() - start), mean, stability.isStable());
+			ready.complete(result);
+			return result;
+		} catch (ExecutionException e) {
+			ready.completeExceptionally(e.getCause());
+			throw new IllegalStateException("Warm-up failed.", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the warm-up on a new thread.
+	 * @return the future completed when the PDP is ready.
+	 */
+	public CompletableFuture<Result> start() {
+		var thread = new Thread(() -> {
+			try {
+				warmUp();
+			} catch (InterruptedException e) {
+				ready.completeExceptionally(e);
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				ready.completeExceptionally(e);
+			}
+		}, "pdp-warm-up");
+		thread.setDaemon(true);
+		thread.start();
+		return ready;
+	}
+
+	/**
+	 * @return true, if the warm-up finished and the PDP is ready to serve.
+	 */
+	public boolean isReady() {
+		return ready.isDone() && !ready.isCompletedExceptionally();
+	}
+
+	private long decideAll(int offset) {
+		long nanos = 0L;
+		for (int i = 0; i < subscriptions.size(); i++) {
+			var subscription = subscriptions.get((offset + i) % subscriptions.size());
+			long start = System.nanoTime();
+			pdp.decideOnce(subscription);
+			nanos += System.nanoTime() - start;
+		}
+		return nanos;
+	}
+
+	/**
+	 * The outcome of a warm-up.
+	 */
+	public static final class Result {
+
+		private final int rounds;
+
+		private final Duration duration;
+
+		private final double meanNanos;
+
+		private final boolean stable;
+
+		Result(int rounds, Duration duration, double meanNanos, boolean stable) {
+			this.rounds = rounds;
+			this.duration = duration;
+			this.meanNanos = meanNanos;
+			this.stable = stable;
+		}
+
+		public int getRounds() {
+			return rounds;
+		}
+
+		public Duration getDuration() {
+			return duration;
+		}
+
+		/**
+		 * @return the mean latency of a decision in the last round.
+		 */
+		public double getMeanNanos() {
+			return meanNanos;
+		}
+
+		/**
+		 * @return false, if the warm-up ended after the maximal duration without a
+		 * stable latency.
+		 */
+		public boolean isStable() {
+			return stable;
+		}
+
+	}
+
+}
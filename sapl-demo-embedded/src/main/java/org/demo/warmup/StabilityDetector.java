@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.warmup;
+
+/**
+ * Decides whether a latency has reached a steady state. The latency is
+ * measured in consecutive windows, and it is considered stable once the mean
+ * of a number of consecutive windows changed by less than a tolerance relative
+ * to the preceding window.
+ */
+public class StabilityDetector {
+
+	private final double tolerance;
+
+	private final int requiredStableWindows;
+
+	private double previousMean = Double.NaN;
+
+	private int stableWindows;
+
+	/**
+	 * Creates a new {@code StabilityDetector}.
+	 * @param tolerance the tolerated relative change between two windows, e.g.,
+	 * 0.05 for 5%.
+	 * @param requiredStableWindows the number of consecutive windows within the
+	 * tolerance.
+	 */
+	public StabilityDetector(double tolerance, int requiredStableWindows) {
+		this.tolerance = tolerance;
+		this.requiredStableWindows = requiredStableWindows;
+	}
+
+	/**
+	 * Adds the mean latency of the next window.
+	 * @param mean the mean latency of the window.
+	 * @return true, if the latency is stable.
+	 */
+	public boolean add(double mean) {
+		if (!Double.isNaN(previousMean) && Math.abs(mean - previousMean) <= tolerance * previousMean) {
+			stableWindows++;
+		} else {
+			stableWindows = 0;
+		}
+		previousMean = mean;
+		return isStable();
+	}
+
+	/**
+	 * @return true, if the latency is stable.
+	 */
+	public boolean isStable() {
+		return stableWindows >= requiredStableWindows;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.recording;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+
+public class SubscriptionLogReaderTest {
+
+	private static final int RECORDS = 50;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void readsAllRecordsWithinOneWindow() throws IOException {
+		var log = write(RECORDS);
+		assertRecords(log, 64L * 1024L * 1024L, RECORDS);
+	}
+
+	@Test
+	public void readsRecordsSpanningWindows() throws IOException {
+		var log = write(RECORDS);
+		// windows smaller than a record and sizes not aligned with the records
+		for (long windowSize : new long[] { 1L, 13L, 50L, 97L, 256L }) {
+			assertRecords(log, windowSize, RECORDS);
+		}
+	}
+
+	@Test
+	public void ignoresIncompleteLastRecord() throws IOException {
+		var log = write(2);
+		try (var channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3L);
+		}
+		assertRecords(log, 20L, 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsFilesWithoutHeader() throws IOException {
+		var file = folder.newFile("empty.log").toPath();
+		new SubscriptionLogReader(file).close();
+	}
+
+	private Path write(int records) throws IOException {
+		var log = folder.getRoot().toPath().resolve("subscriptions.log");
+		try (var writer = new SubscriptionLogWriter(log)) {
+			for (int i = 0; i < records; i++) {
+				writer.append(record(i));
+			}
+		}
+		return log;
+	}
+
+	private static void assertRecords(Path log, long windowSize, int records) throws IOException {
+		try (var reader = new SubscriptionLogReader(log, windowSize)) {
+			for (int i = 0; i < records; i++) {
+				var expected = record(i);
+				var actual = reader.next();
+				assertNotNull("record " + i + " with window size " + windowSize, actual);
+				assertEquals(expected.getTimestampMicros(), actual.getTimestampMicros());
+				assertEquals(expected.getSubscription().getResource(), actual.getSubscription().getResource());
+				assertEquals(expected.getDecision(), actual.getDecision());
+			}
+			assertNull(reader.next());
+		}
+	}
+
+	private static SubscriptionRecord record(int i) {
+		// varying lengths, so records start at different offsets of the windows
+		var subscription = AuthorizationSubscription.of("willi", "read", "resource-" + "x".repeat(i % 7) + i);
+		var decision = i % 3 == 0 ? null : JsonNodeFactory.instance.objectNode().put("decision", "PERMIT");
+		return new SubscriptionRecord(1_000L + i, subscription, decision);
+	}
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.demo.cache.CachingRemotePolicyDecisionPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Compares one-shot subscriptions against the remote PDP with and without a
+ * {@link CachingRemotePolicyDecisionPoint} in front of it and reports the hit
+ * ratio of the cache and the latency saved.
+ * 
+ * The requests cycle through a fixed number of distinct subscriptions, i.e.,
+ * all but the first request of each subscription may be served from the cache
+ * as long as its decision did not expire.
+ */
+@Command(name = "cache", description = "Compares one-shot remote decisions with and without a client-side decision cache.")
+public class CacheCommand implements Callable<Integer> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CacheCommand.class);
+
+	private static final double NANOS_PER_MILLI = 1_000_000.0D;
+
+	@ParentCommand
+	private RemotePDPDemo demo;
+
+	@Option(names = { "-n", "-requests" }, description = "Number of requests per run. Defaults to 10000.")
+	private int requests = 10_000;
+
+	@Option(names = { "-distinct" }, description = "Number of distinct subscriptions the requests cycle through. Defaults to 100.")
+	private int distinct = 100;
+
+	@Option(names = { "-ttl" }, description = "Time-to-live of cached decisions in milliseconds. Defaults to 5000.")
+	private long ttlMillis = 5_000L;
+
+	@Option(names = { "-size" }, description = "Maximal number of cached decisions. Defaults to 10000.")
+	private long maximumSize = 10_000L;
+
+	@Option(names = { "-hot" }, description = "Number of hits after which a decision is kept up to date by a background subscription, 0 to disable. Defaults to 0.")
+	private int hotThreshold;
+
+	@Override
+	public Integer call() throws Exception {
+		demo.startLocalServerIfRequested();
+		try {
+			var subscriptions = subscriptions();
+			var remote = demo.newPolicyDecisionPoint(demo.host());
+			var cached = new CachingRemotePolicyDecisionPoint(demo.newPolicyDecisionPoint(demo.host()), maximumSize,
+					Duration.ofMillis(ttlMillis), hotThreshold);
+
+			LOG.info("Warming up...");
+			run(remote, subscriptions, Math.min(requests, 1_000));
+
+			LOG.info("Running {} requests over {} distinct subscriptions without cache...", requests, distinct);
+			double uncachedMean = run(remote, subscriptions, requests);
+			LOG.info("Running {} requests over {} distinct subscriptions with cache...", requests, distinct);
+			double cachedMean = run(cached, subscriptions, requests);
+
+			var stats = cached.stats();
+			LOG.info("Client-Side Cache Results:");
+			LOG.info("Hit ratio       : {} % ({} hits, {} misses, {} evictions)",
+					String.format("%.1f", stats.hitRate() * 100.0D), stats.hitCount(), stats.missCount(),
+					stats.evictionCount());
+			LOG.info("Mean latency    : {} ms uncached, {} ms cached", millis(uncachedMean), millis(cachedMean));
+			LOG.info("Latency saved   : {} %", String.format("%.1f", (1.0D - cachedMean / uncachedMean) * 100.0D));
+			LOG.info("Streamed entries: {}", cached.streamedEntries());
+			cached.invalidateAll();
+		} finally {
+			demo.stopLocalServer();
+		}
+		return 0;
+	}
+
+	private List<AuthorizationSubscription> subscriptions() {
+		var subscriptions = new ArrayList<AuthorizationSubscription>(distinct);
+		subscriptions.add(RemotePDPDemo.AUTHZ_SUBSCRIPTION);
+		for (int i = 1; i < distinct; i++) {
+			subscriptions.add(AuthorizationSubscription.of("Willi", "eat", "icecream-" + i));
+		}
+		return subscriptions;
+	}
+
+	private static double run(PolicyDecisionPoint pdp, List<AuthorizationSubscription> subscriptions, int count) {
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			pdp.decide(subscriptions.get(i % subscriptions.size())).blockFirst();
+		}
+		return (System.nanoTime() - start) / (double) count;
+	}
+
+	private static String millis(double nanos) {
+		return String.format("%.3f", nanos / NANOS_PER_MILLI);
+	}
+
+}
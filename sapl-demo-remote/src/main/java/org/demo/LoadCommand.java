@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.demo.load.MeteringProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * Drives many concurrent one-shot subscriptions through a single
+ * {@code RemotePolicyDecisionPoint} and reports latency percentiles and
+ * throughput, together with the connections the client opened to the server.
+ * 
+ * The client connects to the server through a {@link MeteringProxy}, which
+ * counts TCP connections, TLS handshakes and bytes on the wire. A client
+ * pooling its connections opens few connections and handshakes, no matter how
+ * many requests it makes.
+ */
+@Command(name = "load", description = "Runs concurrent subscriptions against the remote PDP and reports latency, throughput and connection metrics.")
+public class LoadCommand implements Callable<Integer> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadCommand.class);
+
+	private static final int HISTOGRAM_PRECISION = 3;
+	private static final int DEFAULT_HTTPS_PORT = 443;
+	private static final double NANOS_PER_MILLI = 1_000_000.0D;
+
+	@ParentCommand
+	private RemotePDPDemo demo;
+
+	@Option(names = { "-c", "-concurrency" }, description = "Number of concurrent subscriptions. Defaults to 64.")
+	private int concurrency = 64;
+
+	@Option(names = { "-d", "-duration" }, description = "Duration of the measurement in seconds. Defaults to 30.")
+	private int durationSeconds = 30;
+
+	@Option(names = { "-w", "-warmup" }, description = "Duration of the warm-up phase in seconds, which is not measured. Defaults to 5.")
+	private int warmupSeconds = 5;
+
+	@Override
+	public Integer call() throws Exception {
+		demo.startLocalServerIfRequested();
+		var target = URI.create(demo.host());
+		var proxy = new MeteringProxy(target.getHost(), target.getPort() < 0 ? DEFAULT_HTTPS_PORT : target.getPort());
+		int proxyPort = proxy.start();
+		try {
+			var pdp = demo.newPolicyDecisionPoint(target.getScheme() + "://localhost:" + proxyPort);
+			LOG.info("Load test against {} with {} concurrent subscriptions", target, concurrency);
+			LOG.info("Warming up for {} s...", warmupSeconds);
+			runLoad(pdp, warmupSeconds, new Recorder(HISTOGRAM_PRECISION), new LongAdder());
+			proxy.getMetrics().reset();
+
+			LOG.info("Measuring for {} s...", durationSeconds);
+			var recorder = new Recorder(HISTOGRAM_PRECISION);
+			var errors = new LongAdder();
+			long start = System.nanoTime();
+			runLoad(pdp, durationSeconds, recorder, errors);
+			double seconds = (System.nanoTime() - start) / 1_000_000_000.0D;
+
+			Histogram histogram = recorder.getIntervalHistogram();
+			LOG.info("Remote Load Results:");
+			LOG.info("Requests       : {} ({} failed)", histogram.getTotalCount(), errors.sum());
+			LOG.info("Throughput     : {} requests/s", Math.round(histogram.getTotalCount() / seconds));
+			LOG.info("Latency        : mean {} ms, p50 {} ms, p90 {} ms, p99 {} ms, p99.9 {} ms, max {} ms",
+					millis(histogram.getMean()), millis(histogram.getValueAtPercentile(50.0D)),
+					millis(histogram.getValueAtPercentile(90.0D)), millis(histogram.getValueAtPercentile(99.0D)),
+					millis(histogram.getValueAtPercentile(99.9D)), millis(histogram.getMaxValue()));
+			proxy.getMetrics().log(LOG, histogram.getTotalCount());
+		} finally {
+			proxy.stop();
+			demo.stopLocalServer();
+		}
+		return 0;
+	}
+
+	private void runLoad(PolicyDecisionPoint pdp, int seconds, Recorder recorder, LongAdder errors)
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		var finished = new CountDownLatch(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			executor.execute(() -> {
+				try {
+					while (System.nanoTime() < deadline) {
+						long begin = System.nanoTime();
+						try {
+							pdp.decide(RemotePDPDemo.AUTHZ_SUBSCRIPTION).blockFirst();
+							recorder.recordValue(System.nanoTime() - begin);
+						} catch (RuntimeException e) {
+							errors.increment();
+						}
+					}
+				} finally {
+					finished.countDown();
+				}
+			});
+		}
+		finished.await();
+		executor.shutdown();
+	}
+
+	private static String millis(double nanos) {
+		return String.format("%.3f", nanos / NANOS_PER_MILLI);
+	}
+
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.demo.load.MeteringProxy;
+import org.demo.wire.WireFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import reactor.core.Disposables;
+
+/**
+ * Opens the subscriptions of many simulated UI sessions, once with one HTTP
+ * stream per subscription and once multiplexed over a few streams, and
+ * compares the connections and heap memory the client needs to hold them.
+ * 
+ * Both clients connect through a {@link MeteringProxy}, which counts the TCP
+ * connections and TLS handshakes. The multiplexing API is only offered by the
+ * stand-in server, i.e., the command has to be run with
+ * {@code --local-server}.
+ */
+@Command(name = "multiplex", description = "Compares per-subscription streams with subscriptions multiplexed over few streams.")
+public class MultiplexCommand implements Callable<Integer> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MultiplexCommand.class);
+
+	private static final int DEFAULT_HTTPS_PORT = 443;
+	private static final double BYTES_PER_KIB = 1024.0D;
+
+	@ParentCommand
+	private RemotePDPDemo demo;
+
+	@Option(names = { "-sessions" }, description = "Number of simulated UI sessions. Defaults to 500.")
+	private int sessions = 500;
+
+	@Option(names = { "-per-session" }, description = "Number of subscriptions per session. Defaults to 3.")
+	private int subscriptionsPerSession = 3;
+
+	@Option(names = { "-streams" }, description = "Number of multiplexed streams. Defaults to 1.")
+	private int streams = 1;
+
+	@Option(names = { "-control" }, description = "Number of connections for adding and removing multiplexed subscriptions. Defaults to 4.")
+	private int controlConnections = 4;
+
+	@Option(names = { "-format" }, description = "Preferred wire format of the multiplexed streams, one of ${COMPLETION-CANDIDATES}. Defaults to JSON.")
+	private WireFormat wireFormat = WireFormat.JSON;
+
+	@Option(names = { "-timeout" }, description = "Time to wait for the first decision of all subscriptions in seconds. Defaults to 60.")
+	private int timeoutSeconds = 60;
+
+	@Override
+	public Integer call() throws Exception {
+		demo.startLocalServerIfRequested();
+		var target = URI.create(demo.host());
+		var proxy = new MeteringProxy(target.getHost(), target.getPort() < 0 ? DEFAULT_HTTPS_PORT : target.getPort());
+		int proxyPort = proxy.start();
+		try {
+			var url = target.getScheme() + "://localhost:" + proxyPort;
+			LOG.info("Opening {} sessions with {} subscriptions each against {}", sessions, subscriptionsPerSession,
+					target);
+			measure("Per-subscription streams", demo.newPolicyDecisionPoint(url), proxy);
+			var multiplexing = demo.newMultiplexingPolicyDecisionPoint(url, wireFormat, streams,
+					controlConnections);
+			try {
+				measure("Multiplexed over " + streams + " stream(s) using " + wireFormat, multiplexing, proxy);
+			} finally {
+				multiplexing.dispose();
+			}
+		} finally {
+			proxy.stop();
+			demo.stopLocalServer();
+		}
+		return 0;
+	}
+
+	private void measure(String mode, PolicyDecisionPoint pdp, MeteringProxy proxy) throws InterruptedException {
+		int total = sessions * subscriptionsPerSession;
+		var metrics = proxy.getMetrics();
+		metrics.reset();
+		long heapBefore = usedHeapAfterGc();
+		var firstDecisions = new CountDownLatch(total);
+		var errors = new LongAdder();
+		var subscriptions = Disposables.composite();
+		long start = System.nanoTime();
+		for (int session = 0; session < sessions; session++) {
+			for (int i = 0; i < subscriptionsPerSession; i++) {
+				var first = new AtomicBoolean();
+				subscriptions.add(pdp.decide(subscription(session, i)).subscribe(decision -> {
+					if (first.compareAndSet(false, true)) {
+						firstDecisions.countDown();
+					}
+				}, error -> {
+					errors.increment();
+					if (first.compareAndSet(false, true)) {
+						firstDecisions.countDown();
+					}
+				}));
+			}
+		}
+		boolean complete = firstDecisions.await(timeoutSeconds, TimeUnit.SECONDS);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		long heapAfter = usedHeapAfterGc();
+
+		LOG.info("{}:", mode);
+		LOG.info("Subscriptions  : {} ({} failed{})", total, errors.sum(),
+				complete ? "" : ", " + firstDecisions.getCount() + " without decision after " + timeoutSeconds + " s");
+		LOG.info("First decisions: {} ms", elapsedMillis);
+		LOG.info("Connections    : {} open, {} opened, {} TLS handshakes", metrics.getOpenConnections(),
+				metrics.getConnectionsOpened(), metrics.getTlsHandshakes());
+		LOG.info("Client heap    : {} KiB, {} KiB per subscription", kib(heapAfter - heapBefore),
+				kib((heapAfter - heapBefore) / (double) total));
+		subscriptions.dispose();
+	}
+
+	private static AuthorizationSubscription subscription(int session, int index) {
+		return AuthorizationSubscription.of("user-" + session, "eat", index == 0 ? "icecream" : "icecream-" + index);
+	}
+
+	private static long usedHeapAfterGc() {
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static String kib(double bytes) {
+		return String.format("%.1f", bytes / BYTES_PER_KIB);
+	}
+
+}
@@ -15,26 +15,36 @@
  ******************************************************************************/
 package org.demo;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import javax.net.ssl.SSLException;
 
+import org.demo.multiplex.MultiplexingPolicyDecisionPoint;
+import org.demo.server.LocalPdpServer;
+import org.demo.wire.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.pdp.EmbeddedPolicyDecisionPoint;
+import io.sapl.pdp.PolicyDecisionPointFactory;
 import io.sapl.pdp.remote.RemotePolicyDecisionPoint;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
-@Command
+@Command(subcommands = { LoadCommand.class, CacheCommand.class, MultiplexCommand.class })
 public class RemotePDPDemo implements Callable<Integer> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RemotePDPDemo.class);
 
+	static final AuthorizationSubscription AUTHZ_SUBSCRIPTION = AuthorizationSubscription.of("Willi", "eat",
+			"icecream");
+
 	@Option(names = { "-h",
 			"-host" }, description = "Hostname of the policy decision point including prefix and port. E.g. 'https://example.org:8443'.")
 	private String host = "https://localhost:8443";
@@ -48,17 +58,29 @@ public class RemotePDPDemo implements Callable<Integer> {
 			"-secret" }, description = "Client secret for the demo application, to be obtained from the PDP administrator.")
 	private String clientSecret = "Fa4zvYQdiwHZVXh";
 
+	@Option(names = { "-local-server",
+			"--local-server" }, description = "Start an in-process stand-in for the PDP server on a free port and connect to it instead of the host.")
+	private boolean localServer;
+
+	private EmbeddedPolicyDecisionPoint localPdp;
+
+	private LocalPdpServer server;
+
 	public static void main(String... args) {
 		System.exit(new CommandLine(new RemotePDPDemo()).execute(args));
 	}
 
-	public Integer call() throws SSLException {
-		LOG.warn("INSECURE SSL SETTINGS! This demo uses an insecure SslContext for "
-				+ "testing purposes only. It will accept all certificates. "
-				+ "This is only for testing local servers with self-signed certificates easily. "
-				+ "NERVER USE SUCH A CONFIURATION IN PRODUCTION!");
-		var sslContext = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
-		var pdp = new RemotePolicyDecisionPoint(host, clientKey, clientSecret, sslContext);
+	public Integer call() throws Exception {
+		startLocalServerIfRequested();
+		try {
+			return runDemo();
+		} finally {
+			stopLocalServer();
+		}
+	}
+
+	private Integer runDemo() throws SSLException {
+		var pdp = newPolicyDecisionPoint(host);
 
 		/*
 		 * To have the client use the default SSL verification use this constructor
@@ -67,7 +89,7 @@ public Integer call() throws SSLException {
 		 * var pdp = new RemotePolicyDecisionPoint(host, clientKey, clientSecret);
 		 */
 
-		var authzSubscription = AuthorizationSubscription.of("Willi", "eat", "icecream");
+		var authzSubscription = AUTHZ_SUBSCRIPTION;
 		LOG.info("Subscription: {}", authzSubscription);
 		/*
 		 * This just consumes the first decision in a blocking fashion to quickly
@@ -81,4 +103,61 @@ public Integer call() throws SSLException {
 		return 0;
 	}
 
+	/**
+	 * Creates a client for the PDP server at the given URL.
+	 */
+	RemotePolicyDecisionPoint newPolicyDecisionPoint(String url) throws SSLException {
+		return new RemotePolicyDecisionPoint(url, clientKey, clientSecret, insecureSslContext());
+	}
+
+	/**
+	 * Creates a client for the multiplexing API of the stand-in server at the
+	 * given URL.
+	 */
+	MultiplexingPolicyDecisionPoint newMultiplexingPolicyDecisionPoint(String url, WireFormat wireFormat,
+			int streams, int controlConnections) throws SSLException {
+		return new MultiplexingPolicyDecisionPoint(url, clientKey, clientSecret, insecureSslContext(), wireFormat,
+				streams, controlConnections);
+	}
+
+	private static SslContext insecureSslContext() throws SSLException {
+		LOG.warn("INSECURE SSL SETTINGS! This demo uses an insecure SslContext for "
+				+ "testing purposes only. It will accept all certificates. "
+				+ "This is only for testing local servers with self-signed certificates easily. "
+				+ "NERVER USE SUCH A CONFIURATION IN PRODUCTION!");
+		return SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+	}
+
+	/**
+	 * @return the URL of the PDP server, i.e., of the stand-in server if it was
+	 * started.
+	 */
+	String host() {
+		return host;
+	}
+
+	/**
+	 * The stand-in server decides with an embedded PDP using the policies bundled
+	 * in src/main/resources/policies. It accepts the client key and secret of
+	 * this demo and uses a self-signed certificate, which the demo accepts as it
+	 * trusts all certificates.
+	 */
+	void startLocalServerIfRequested() throws Exception {
+		if (!localServer) {
+			return;
+		}
+		localPdp = PolicyDecisionPointFactory.resourcesPolicyDecisionPoint(List.of(), List.of());
+		server = new LocalPdpServer(localPdp, clientKey, clientSecret);
+		host = server.start(0);
+	}
+
+	void stopLocalServer() {
+		if (server != null) {
+			server.stop();
+		}
+		if (localPdp != null) {
+			localPdp.dispose();
+		}
+	}
+
 }
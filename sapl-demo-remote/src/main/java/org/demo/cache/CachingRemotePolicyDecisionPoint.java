@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+/**
+ * A client-side cache for a remote {@link PolicyDecisionPoint}, which saves
+ * the network round-trip, TLS and JSON processing for repeated subscriptions.
+ * 
+ * The latest decision of each subscription is kept in a bounded cache.
+ * Subscriptions are compared by the structural equality of their JSON values.
+ * On a hit, the cached decision is emitted immediately, and the remote PDP is
+ * only subscribed to if the consumer requests more than one decision, i.e.,
+ * one-shot consumers using {@code .blockFirst()} or {@code .take(1)} do not
+ * cause any network traffic.
+ * 
+ * Cached decisions expire after a time-to-live, as the server may change its
+ * decision at any time. Optionally, once an entry was hit a number of times,
+ * the cache keeps a streaming subscription to the remote PDP for it in the
+ * background. The decisions pushed by the server replace the cached decision,
+ * and such hot entries do not expire. The background subscription ends when
+ * the entry is evicted. If it fails, the entry expires after the time-to-live
+ * again.
+ * 
+ * Multi-subscriptions are passed through to the delegate.
+ */
+public class CachingRemotePolicyDecisionPoint implements PolicyDecisionPoint {
+
+	private final PolicyDecisionPoint delegate;
+
+	private final Duration timeToLive;
+
+	private final int hotThreshold;
+
+	private final Cache<AuthorizationSubscription, Entry> cache;
+
+	/**
+	 * Creates a new {@code CachingRemotePolicyDecisionPoint} without background
+	 * subscriptions.
+	 * @param delegate the remote PDP.
+	 * @param maximumSize the maximal number of cached decisions.
+	 * @param timeToLive the time after which a cached decision expires.
+	 */
+	public CachingRemotePolicyDecisionPoint(PolicyDecisionPoint delegate, long maximumSize, Duration timeToLive) {
+		this(delegate, maximumSize, timeToLive, 0);
+	}
+
+	/**
+	 * Creates a new {@code CachingRemotePolicyDecisionPoint}.
+	 * @param delegate the remote PDP.
+	 * @param maximumSize the maximal number of cached decisions.
+	 * @param timeToLive the time after which a cached decision expires.
+	 * @param hotThreshold the number of hits after which an entry is kept up to
+	 * date by a background subscription, or 0 to never subscribe in the
+	 * background.
+	 */
+	public CachingRemotePolicyDecisionPoint(PolicyDecisionPoint delegate, long maximumSize, Duration timeToLive,
+			int hotThreshold) {
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.hotThreshold = hotThreshold;
+		this.cache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new EntryExpiry())
+				.removalListener((AuthorizationSubscription key, Entry entry, RemovalCause cause) -> {
+					if (entry != null && cause != RemovalCause.REPLACED) {
+						entry.stopStreaming();
+					}
+				}).recordStats().build();
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		// look up the cache on subscription, so re-subscribing never replays an expired
+		// decision and only subscribed fluxes count as hits
+		return Flux.defer(() -> {
+			var decisions = delegate.decide(authzSubscription)
+					.doOnNext(decision -> update(authzSubscription, decision));
+			var entry = cache.getIfPresent(authzSubscription);
+			if (entry == null) {
+				return decisions;
+			}
+			if (hotThreshold > 0 && entry.hit() == hotThreshold) {
+				startStreaming(authzSubscription, entry);
+			}
+			return decisions.startWith(entry.decision).distinctUntilChanged();
+		});
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decide(multiAuthzSubscription);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return delegate.decideAll(multiAuthzSubscription);
+	}
+
+	/**
+	 * @return a snapshot of the hit and miss counters of the cache.
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * @return the number of entries kept up to date by a background subscription.
+	 */
+	public long streamedEntries() {
+		return cache.asMap().values().stream().filter(Entry::isStreaming).count();
+	}
+
+	/**
+	 * Drops all cached decisions and ends all background subscriptions.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	private void update(AuthorizationSubscription authzSubscription, AuthorizationDecision decision) {
+		cache.asMap().compute(authzSubscription,
+				(key, entry) -> entry == null ? new Entry(decision) : entry.withDecision(decision));
+	}
+
+	private void startStreaming(AuthorizationSubscription authzSubscription, Entry entry) {
+		// store the subscription before subscribing, so a stream terminating right away
+		// clears it, and an eviction in the meantime disposes it
+		var subscription = Disposables.swap();
+		entry.streaming.set(subscription);
+		subscription.update(delegate.decide(authzSubscription).subscribe(
+				decision -> update(authzSubscription, decision),
+				error -> stopStreaming(authzSubscription, subscription),
+				() -> stopStreaming(authzSubscription, subscription)));
+		// re-insert the entry, so its expiry is computed without the time-to-live
+		cache.asMap().computeIfPresent(authzSubscription, (key, current) -> current);
+	}
+
+	private void stopStreaming(AuthorizationSubscription authzSubscription, Disposable subscription) {
+		cache.asMap().computeIfPresent(authzSubscription, (key, entry) -> {
+			entry.streaming.compareAndSet(subscription, null);
+			return entry;
+		});
+	}
+
+	/**
+	 * A cached decision. A new decision is stored in a new entry, which shares the
+	 * number of hits and the background subscription keeping the decision up to
+	 * date, if any, with its predecessor.
+	 */
+	private static final class Entry {
+
+		private final AuthorizationDecision decision;
+
+		private final AtomicInteger hits;
+
+		private final AtomicReference<Disposable> streaming;
+
+		Entry(AuthorizationDecision decision) {
+			this(decision, new AtomicInteger(), new AtomicReference<>());
+		}
+
+		private Entry(AuthorizationDecision decision, AtomicInteger hits, AtomicReference<Disposable> streaming) {
+			this.decision = decision;
+			this.hits = hits;
+			this.streaming = streaming;
+		}
+
+		Entry withDecision(AuthorizationDecision newDecision) {
+			return new Entry(newDecision, hits, streaming);
+		}
+
+		int hit() {
+			return hits.incrementAndGet();
+		}
+
+		boolean isStreaming() {
+			return streaming.get() != null;
+		}
+
+		void stopStreaming() {
+			var subscription = streaming.getAndSet(null);
+			if (subscription != null) {
+				subscription.dispose();
+			}
+		}
+
+	}
+
+	/**
+	 * Entries with a background subscription never expire, all others expire
+	 * after the time-to-live since their last update.
+	 */
+	private final class EntryExpiry implements Expiry<AuthorizationSubscription, Entry> {
+
+		@Override
+		public long expireAfterCreate(AuthorizationSubscription key, Entry entry, long currentTime) {
+			return entry.isStreaming() ? Long.MAX_VALUE : timeToLive.toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(AuthorizationSubscription key, Entry entry, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, entry, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(AuthorizationSubscription key, Entry entry, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.load;
+
+/**
+ * Follows the TLS record layer of the byte stream a client sends and reports
+ * each ClientHello message, i.e., each handshake record whose payload starts
+ * with message type 1. The stream may be split into chunks at any position,
+ * also within a record header.
+ * 
+ * Only the first message of each handshake record is inspected, which is the
+ * ClientHello for the records of a client opening a TLS session.
+ */
+final class ClientHelloCounter {
+
+	private static final int RECORD_HEADER_SIZE = 5;
+	private static final int HANDSHAKE = 22;
+	private static final int CLIENT_HELLO = 1;
+
+	private final Runnable onClientHello;
+
+	private final byte[] header = new byte[RECORD_HEADER_SIZE];
+
+	private int headerBytes;
+
+	private int remainingPayload;
+
+	private boolean inspectMessageType;
+
+	/**
+	 * @param onClientHello called for each ClientHello message.
+	 */
+	ClientHelloCounter(Runnable onClientHello) {
+		this.onClientHello = onClientHello;
+	}
+
+	/**
+	 * Scans the next chunk of the stream.
+	 * @param buffer the buffer holding the chunk.
+	 * @param length the length of the chunk.
+	 */
+	void scan(byte[] buffer, int length) {
+		int position = 0;
+		while (position < length) {
+			if (remainingPayload > 0) {
+				if (inspectMessageType) {
+					if ((buffer[position] & 0xFF) == CLIENT_HELLO) {
+						onClientHello.run();
+					}
+					inspectMessageType = false;
+				}
+				int skipped = Math.min(remainingPayload, length - position);
+				remainingPayload -= skipped;
+				position += skipped;
+				continue;
+			}
+			header[headerBytes++] = buffer[position++];
+			if (headerBytes == RECORD_HEADER_SIZE) {
+				inspectMessageType = (header[0] & 0xFF) == HANDSHAKE;
+				remainingPayload = ((header[3] & 0xFF) << 8) | (header[4] & 0xFF);
+				headerBytes = 0;
+			}
+		}
+	}
+
+}
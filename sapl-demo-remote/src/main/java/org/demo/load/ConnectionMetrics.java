@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.load;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * Counters of the TCP connections between a client and a server, as observed
+ * by a {@link MeteringProxy}.
+ */
+public class ConnectionMetrics {
+
+	private final LongAdder connectionsOpened = new LongAdder();
+
+	private final AtomicInteger openConnections = new AtomicInteger();
+
+	private final AtomicInteger maxOpenConnections = new AtomicInteger();
+
+	private final LongAdder tlsHandshakes = new LongAdder();
+
+	private final LongAdder bytesSent = new LongAdder();
+
+	private final LongAdder bytesReceived = new LongAdder();
+
+	void connectionOpened() {
+		connectionsOpened.increment();
+		maxOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+	}
+
+	void connectionClosed() {
+		openConnections.decrementAndGet();
+	}
+
+	void tlsHandshake() {
+		tlsHandshakes.increment();
+	}
+
+	void sent(int bytes) {
+		bytesSent.add(bytes);
+	}
+
+	void received(int bytes) {
+		bytesReceived.add(bytes);
+	}
+
+	public long getConnectionsOpened() {
+		return connectionsOpened.sum();
+	}
+
+	public int getOpenConnections() {
+		return openConnections.get();
+	}
+
+	public int getMaxOpenConnections() {
+		return maxOpenConnections.get();
+	}
+
+	public long getTlsHandshakes() {
+		return tlsHandshakes.sum();
+	}
+
+	/**
+	 * @return the bytes sent from the client to the server.
+	 */
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	/**
+	 * @return the bytes sent from the server to the client.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	/**
+	 * Resets the counters, e.g., after warming up. Connections which are still
+	 * open are counted as open.
+	 */
+	public void reset() {
+		connectionsOpened.reset();
+		maxOpenConnections.set(openConnections.get());
+		tlsHandshakes.reset();
+		bytesSent.reset();
+		bytesReceived.reset();
+	}
+
+	/**
+	 * Logs the counters.
+	 * @param logger the logger.
+	 * @param requests the number of requests made over the connections.
+	 */
+	public void log(Logger logger, long requests) {
+		logger.info("Connections    : {} opened, {} open, {} open at most", getConnectionsOpened(),
+				getOpenConnections(), getMaxOpenConnections());
+		logger.info("TLS handshakes : {}", getTlsHandshakes());
+		logger.info("Bytes sent     : {} ({} per request)", getBytesSent(), perRequest(getBytesSent(), requests));
+		logger.info("Bytes received : {} ({} per request)", getBytesReceived(),
+				perRequest(getBytesReceived(), requests));
+	}
+
+	private static long perRequest(long bytes, long requests) {
+		return requests == 0 ? 0 : bytes / requests;
+	}
+
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TCP proxy on localhost forwarding all connections to a server and counting
+ * the connections, the TLS handshakes and the bytes transferred in either
+ * direction.
+ * 
+ * Putting the proxy between a client and its server shows how the client uses
+ * its connections, e.g., whether it reuses pooled connections or opens a new
+ * connection, with a new TLS handshake, per request. The proxy does not
+ * terminate TLS; handshakes are counted by the TLS ClientHello records sent by
+ * the client. Each connection is served by two threads, so the proxy is meant
+ * for measurements, not for production traffic.
+ * 
+ * As the client connects to the proxy, it sends {@code Host: localhost:<port>}
+ * and the TLS server name {@code localhost} instead of the name of the server.
+ * Measurements against a server behind a name-based virtual host, e.g., a
+ * reverse proxy routing by host name, therefore fail or reach another site.
+ */
+public class MeteringProxy {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MeteringProxy.class);
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final String targetHost;
+
+	private final int targetPort;
+
+	private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+	private ServerSocket serverSocket;
+
+	/**
+	 * Creates a new {@code MeteringProxy}.
+	 * @param targetHost the host of the server.
+	 * @param targetPort the port of the server.
+	 */
+	public MeteringProxy(String targetHost, int targetPort) {
+		this.targetHost = targetHost;
+		this.targetPort = targetPort;
+	}
+
+	/**
+	 * Starts accepting connections on a free port of localhost.
+	 * @return the port of the proxy.
+	 * @throws IOException if the port cannot be opened.
+	 */
+	public int start() throws IOException {
+		serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+		var acceptor = new Thread(this::accept, "metering-proxy");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting connections. Open connections are closed by their peers.
+	 */
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			LOG.debug("Closing the proxy failed: {}", e.getMessage());
+		}
+	}
+
+	public ConnectionMetrics getMetrics() {
+		return metrics;
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			Socket client;
+			try {
+				client = serverSocket.accept();
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					LOG.warn("Accepting a proxy connection failed: {}", e.getMessage());
+				}
+				continue;
+			}
+			Socket server;
+			try {
+				server = new Socket(targetHost, targetPort);
+			} catch (IOException e) {
+				LOG.warn("Connecting to {}:{} failed: {}", targetHost, targetPort, e.getMessage());
+				// close the client's connection, so it fails instead of waiting for its timeout
+				closeQuietly(client);
+				continue;
+			}
+			metrics.connectionOpened();
+			var handshakes = new ClientHelloCounter(metrics::tlsHandshake);
+			var open = new int[] { 2 };
+			pump(client, server, bytes -> metrics.sent(bytes), handshakes, open);
+			pump(server, client, bytes -> metrics.received(bytes), null, open);
+		}
+	}
+
+	private void pump(Socket from, Socket to, IntConsumer counter, ClientHelloCounter handshakes, int[] open) {
+		var thread = new Thread(() -> {
+			var buffer = new byte[BUFFER_SIZE];
+			try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					counter.accept(read);
+					if (handshakes != null) {
+						handshakes.scan(buffer, read);
+					}
+					out.write(buffer, 0, read);
+					out.flush();
+				}
+			} catch (IOException e) {
+				// the connection was closed by one of the peers
+			} finally {
+				closeQuietly(from);
+				closeQuietly(to);
+				synchronized (open) {
+					if (--open[0] == 0) {
+						metrics.connectionClosed();
+					}
+				}
+			}
+		}, "metering-proxy-pump");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// already closed
+		}
+	}
+
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.multiplex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.demo.multi.MultiSubscriptions;
+import org.demo.wire.WireFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.SslContext;
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.Decision;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * A client for the multiplexing API of the {@code LocalPdpServer}, which sends
+ * the decisions of many subscriptions over a fixed number of long-lived
+ * streams, instead of holding one HTTP stream, i.e., one connection, per
+ * subscription like the {@code RemotePolicyDecisionPoint}.
+ * 
+ * Each subscription gets a client-side ID and is assigned to one of the
+ * streams round-robin. It is added to the session of its stream with a short
+ * request over a small pool of control connections, and removed again when
+ * the subscriber cancels. Requests waiting for a control connection are
+ * queued without limit, and fail if they wait for more than 30 s. The
+ * decisions arriving on a stream are dispatched to the subscribers by their
+ * ID. The number of connections is thus bounded by the number of streams plus
+ * the size of the control pool, no matter how many subscriptions are active.
+ * 
+ * A stream is opened on its first subscription. If it fails, all of its
+ * subscribers receive the error, and the next subscription opens a new stream.
+ * Multi-subscriptions are split into their entries, which are multiplexed like
+ * single subscriptions.
+ * 
+ * The client asks for its preferred {@link WireFormat} and falls back to JSON
+ * if the server answers with JSON. Subscriptions are sent in the format the
+ * server chose for the stream.
+ */
+public class MultiplexingPolicyDecisionPoint implements PolicyDecisionPoint, Disposable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MultiplexingPolicyDecisionPoint.class);
+
+	private static final String MULTIPLEX_PATH = "/api/pdp/multiplex";
+
+	private static final Duration CONTROL_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient streamClient;
+
+	private final HttpClient controlClient;
+
+	private final ConnectionProvider controlConnections;
+
+	private final Stream[] streams;
+
+	private final AtomicLong nextSubscriptionId = new AtomicLong();
+
+	/**
+	 * Creates a new {@code MultiplexingPolicyDecisionPoint}.
+	 * @param baseUrl the URL of the server, e.g., 'https://localhost:8443'.
+	 * @param clientKey the client key.
+	 * @param clientSecret the client secret.
+	 * @param sslContext the TLS settings.
+	 * @param wireFormat the preferred encoding of subscriptions and decisions.
+	 * @param streams the number of multiplexed streams.
+	 * @param controlConnections the maximal number of connections for adding and
+	 * removing subscriptions.
+	 */
+	public MultiplexingPolicyDecisionPoint(String baseUrl, String clientKey, String clientSecret,
+			SslContext sslContext, WireFormat wireFormat, int streams, int controlConnections) {
+		var authorization = "Basic " + Base64.getEncoder()
+				.encodeToString((clientKey + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+		this.streamClient = HttpClient.create(ConnectionProvider.newConnection()).baseUrl(baseUrl)
+				.secure(spec -> spec.sslContext(sslContext))
+				.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, authorization)
+						.set(HttpHeaderNames.ACCEPT, WireFormat.accept(wireFormat)));
+		// a burst of subscriptions queues far more adds than there are control
+		// connections, so the queue is unbounded and only the wait is limited
+		this.controlConnections = ConnectionProvider.builder("multiplex-control").maxConnections(controlConnections)
+				.pendingAcquireMaxCount(-1).pendingAcquireTimeout(CONTROL_ACQUIRE_TIMEOUT).build();
+		this.controlClient = HttpClient.create(this.controlConnections).baseUrl(baseUrl)
+				.secure(spec -> spec.sslContext(sslContext))
+				.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, authorization));
+		this.streams = new Stream[streams];
+		for (int i = 0; i < streams; i++) {
+			this.streams[i] = new Stream();
+		}
+	}
+
+	@Override
+	public Flux<AuthorizationDecision> decide(AuthorizationSubscription authzSubscription) {
+		return Flux.create(sink -> {
+			long id = nextSubscriptionId.incrementAndGet();
+			var session = streams[(int) (id % streams.length)].session();
+			var subscriptionId = Long.toString(id);
+			var added = session.add(subscriptionId, authzSubscription, sink);
+			sink.onDispose(() -> session.remove(subscriptionId, added));
+		});
+	}
+
+	@Override
+	public Flux<IdentifiableAuthorizationDecision> decide(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return MultiSubscriptions.decide(multiAuthzSubscription, this::decide);
+	}
+
+	@Override
+	public Flux<MultiAuthorizationDecision> decideAll(MultiAuthorizationSubscription multiAuthzSubscription) {
+		return MultiSubscriptions.decideAll(multiAuthzSubscription, this::decide);
+	}
+
+	/**
+	 * Closes all streams and the control connections.
+	 */
+	@Override
+	public void dispose() {
+		for (var stream : streams) {
+			stream.close();
+		}
+		controlConnections.dispose();
+	}
+
+	private Mono<Void> control(HttpMethod method, String sessionId, String subscriptionId, WireFormat format,
+			byte[] body) {
+		return controlClient.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, format.mediaType()))
+				.request(method).uri(MULTIPLEX_PATH + '/' + sessionId + '/' + subscriptionId)
+				.send(ByteBufFlux.fromInbound(Mono.just(body))).responseSingle((response, content) -> {
+					if (response.status().code() != HttpResponseStatus.NO_CONTENT.code()) {
+						return Mono.error(new IllegalStateException(
+								method + " of subscription " + subscriptionId + " failed: " + response.status()));
+					}
+					return content.then();
+				});
+	}
+
+	private static AuthorizationDecision toDecision(JsonNode json) {
+		var decision = new AuthorizationDecision(Decision.valueOf(json.path("decision").asText()));
+		if (json.has("resource")) {
+			decision = decision.withResource(json.get("resource"));
+		}
+		if (json.has("obligations")) {
+			decision = decision.withObligations((ArrayNode) json.get("obligations"));
+		}
+		if (json.has("advices")) {
+			decision = decision.withAdvices((ArrayNode) json.get("advices"));
+		}
+		return decision;
+	}
+
+	/**
+	 * One of the multiplexed streams. It holds the current session, if any.
+	 */
+	private final class Stream {
+
+		private Session current;
+
+		synchronized Session session() {
+			if (current == null || current.closed) {
+				current = new Session();
+			}
+			return current;
+		}
+
+		synchronized void close() {
+			if (current != null) {
+				current.close(new IllegalStateException("Multiplexing client disposed"));
+				current = null;
+			}
+		}
+
+	}
+
+	/**
+	 * A session of the server, i.e., one open stream and the subscribers of the
+	 * subscriptions added to it.
+	 */
+	private final class Session {
+
+		private final CompletableFuture<String> sessionId = new CompletableFuture<>();
+
+		private volatile WireFormat format = WireFormat.JSON;
+
+		private final Map<String, FluxSink<AuthorizationDecision>> sinks = new ConcurrentHashMap<>();
+
+		private final Disposable connection;
+
+		private volatile boolean closed;
+
+		Session() {
+			connection = streamClient.post().uri(MULTIPLEX_PATH).response((response, content) -> {
+				format = WireFormat.ofContentType(response.responseHeaders().get(HttpHeaderNames.CONTENT_TYPE));
+				var frames = format.newSplitter();
+				return content.asByteArray().concatMapIterable(frames::split);
+			}).subscribe(this::onMessage, this::close,
+					() -> close(new IllegalStateException("Multiplexed stream closed by the server")));
+		}
+
+		Mono<Void> add(String subscriptionId, AuthorizationSubscription authzSubscription,
+				FluxSink<AuthorizationDecision> sink) {
+			sinks.put(subscriptionId, sink);
+			var added = Mono.fromFuture(sessionId).flatMap(id -> {
+				try {
+					return control(HttpMethod.PUT, id, subscriptionId, format,
+							format.mapper().writeValueAsBytes(authzSubscription));
+				} catch (IOException e) {
+					return Mono.<Void>error(e);
+				}
+			}).cache();
+			added.subscribe(done -> {
+			}, sink::error);
+			return added;
+		}
+
+		void remove(String subscriptionId, Mono<Void> added) {
+			sinks.remove(subscriptionId);
+			if (closed) {
+				return;
+			}
+			// wait for the subscription to be added, so the removal cannot overtake it
+			added.onErrorResume(error -> Mono.empty()).then(Mono.fromFuture(sessionId)
+					.flatMap(id -> control(HttpMethod.DELETE, id, subscriptionId, format, new byte[0])))
+					.subscribe(done -> {
+					}, error -> LOG.debug("Removing subscription {} failed", subscriptionId, error));
+		}
+
+		private void onMessage(byte[] line) {
+			JsonNode json;
+			try {
+				json = format.decode(line);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			if (json.has("sessionId")) {
+				sessionId.complete(json.get("sessionId").asText());
+				return;
+			}
+			var sink = sinks.get(json.path("authorizationSubscriptionId").asText());
+			if (sink != null) {
+				sink.next(toDecision(json.path("authorizationDecision")));
+			}
+		}
+
+		void close(Throwable error) {
+			closed = true;
+			sessionId.completeExceptionally(error);
+			if (connection != null) {
+				connection.dispose();
+			}
+			sinks.values().forEach(sink -> sink.error(error));
+			sinks.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.IdentifiableAuthorizationDecision;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationDecision;
+
+/**
+ * Converts decisions into the JSON representation of the HTTP API of the SAPL
+ * authorization server. Absent resources, obligations and advice are omitted,
+ * so no Jackson module for {@code Optional} is required.
+ */
+final class DecisionJson {
+
+	private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+	private DecisionJson() {
+		// utility class
+	}
+
+	static ObjectNode of(AuthorizationDecision authzDecision) {
+		var json = JSON.objectNode();
+		json.put("decision", authzDecision.getDecision().name());
+		authzDecision.getResource().ifPresent(resource -> json.set("resource", resource));
+		authzDecision.getObligations().ifPresent(obligations -> json.set("obligations", obligations));
+		authzDecision.getAdvices().ifPresent(advices -> json.set("advices", advices));
+		return json;
+	}
+
+	static ObjectNode of(IdentifiableAuthorizationDecision identifiableDecision) {
+		return of(identifiableDecision.getAuthorizationSubscriptionId(),
+				identifiableDecision.getAuthorizationDecision());
+	}
+
+	static ObjectNode of(String authzSubscriptionId, AuthorizationDecision authzDecision) {
+		var json = JSON.objectNode();
+		json.put("authorizationSubscriptionId", authzSubscriptionId);
+		json.set("authorizationDecision", of(authzDecision));
+		return json;
+	}
+
+	static ObjectNode session(String sessionId) {
+		var json = JSON.objectNode();
+		json.put("sessionId", sessionId);
+		return json;
+	}
+
+	static JsonNode of(MultiAuthorizationDecision multiDecision) {
+		var decisions = JSON.objectNode();
+		for (var identifiableDecision : multiDecision) {
+			decisions.set(identifiableDecision.getAuthorizationSubscriptionId(),
+					of(identifiableDecision.getAuthorizationDecision()));
+		}
+		var json = JSON.objectNode();
+		json.set("authorizationDecisions", decisions);
+		return json;
+	}
+
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLException;
+
+import org.demo.wire.WireFormat;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import io.sapl.api.pdp.multisubscription.MultiAuthorizationSubscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * A lightweight stand-in for the SAPL authorization server, running in the
+ * same process as the demo. It allows running and load-testing the
+ * {@code RemotePolicyDecisionPoint} client without network access or a
+ * separately installed server.
+ * 
+ * The server offers the streaming endpoints of the authorization server's HTTP
+ * API, backed by the given PDP:
+ * <ul>
+ * <li>{@code POST /api/pdp/decide}</li>
+ * <li>{@code POST /api/pdp/multi-decide}</li>
+ * <li>{@code POST /api/pdp/multi-decide-all}</li>
+ * </ul>
+ * In addition, it offers a multiplexing API, which the authorization server
+ * does not have. {@code POST /api/pdp/multiplex} opens a stream, whose first
+ * element carries the ID of a new session. Subscriptions are added to and
+ * removed from the session with
+ * {@code PUT /api/pdp/multiplex/{sessionId}/{subscriptionId}} and
+ * {@code DELETE /api/pdp/multiplex/{sessionId}/{subscriptionId}}. Their
+ * decisions are sent over the stream of the session, tagged with the
+ * subscription ID. Closing the stream ends the session.
+ * <p>
+ * Decisions are streamed as server-sent events if the client accepts
+ * {@code text/event-stream}. Otherwise, the server negotiates the
+ * {@link WireFormat} with the client's {@code Accept} header, defaulting to
+ * newline-delimited JSON. Subscriptions in request bodies are decoded
+ * according to their {@code Content-Type}. Clients
+ * authenticate with HTTP basic authentication using a single client key and
+ * secret. TLS uses a self-signed certificate generated on start-up, so clients
+ * have to trust all certificates. It is not meant for production use.
+ */
+public class LocalPdpServer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LocalPdpServer.class);
+
+	private static final String EVENT_STREAM = "text/event-stream";
+
+	private final PolicyDecisionPoint pdp;
+
+	private final String expectedAuthorization;
+
+	private final Map<String, MultiplexSession> sessions = new ConcurrentHashMap<>();
+
+	private DisposableServer server;
+
+	/**
+	 * Creates a new {@code LocalPdpServer}.
+	 * @param pdp the PDP deciding the subscriptions.
+	 * @param clientKey the key of the only client.
+	 * @param clientSecret the secret of the only client.
+	 */
+	public LocalPdpServer(PolicyDecisionPoint pdp, String clientKey, String clientSecret) {
+		this.pdp = pdp;
+		this.expectedAuthorization = "Basic " + Base64.getEncoder()
+				.encodeToString((clientKey + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Starts the server on localhost.
+	 * @param port the port, or 0 for any free port.
+	 * @return the URL of the server, e.g., 'https://localhost:8443'.
+	 * @throws CertificateException if the self-signed certificate cannot be
+	 * generated.
+	 * @throws SSLException if the TLS context cannot be created.
+	 */
+	public String start(int port) throws CertificateException, SSLException {
+		var certificate = new SelfSignedCertificate("localhost");
+		var sslContext = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey()).build();
+		server = HttpServer.create().host("localhost").port(port).secure(spec -> spec.sslContext(sslContext))
+				.route(routes -> routes
+						.post("/api/pdp/decide", endpoint(AuthorizationSubscription.class,
+								subscription -> pdp.decide(subscription).map(DecisionJson::of)))
+						.post("/api/pdp/multi-decide", endpoint(MultiAuthorizationSubscription.class,
+								subscription -> pdp.decide(subscription).map(DecisionJson::of)))
+						.post("/api/pdp/multi-decide-all", endpoint(MultiAuthorizationSubscription.class,
+								subscription -> pdp.decideAll(subscription).map(DecisionJson::of)))
+						.post("/api/pdp/multiplex", this::openSession)
+						.put("/api/pdp/multiplex/{sessionId}/{subscriptionId}", this::addToSession)
+						.delete("/api/pdp/multiplex/{sessionId}/{subscriptionId}", this::removeFromSession))
+				.bindNow();
+		var url = "https://localhost:" + server.port();
+		LOG.info("Local PDP server listening on {}", url);
+		return url;
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public void stop() {
+		if (server != null) {
+			server.disposeNow();
+			server = null;
+		}
+	}
+
+	private <T> BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> endpoint(Class<T> subscriptionType,
+			Function<T, Flux<? extends JsonNode>> decide) {
+		return (request, response) -> {
+			if (!isAuthorized(request)) {
+				return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+			}
+			return request.receive().aggregate().asByteArray().flatMap(body -> {
+				T subscription;
+				try {
+					subscription = read(request, body, subscriptionType);
+				} catch (IOException e) {
+					return response.status(HttpResponseStatus.BAD_REQUEST).send().then();
+				}
+				return stream(request, response, decide.apply(subscription));
+			});
+		};
+	}
+
+	private Publisher<Void> openSession(HttpServerRequest request, HttpServerResponse response) {
+		if (!isAuthorized(request)) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+		}
+		var session = new MultiplexSession(pdp);
+		sessions.put(session.id(), session);
+		return request.receive().then(stream(request, response,
+				session.decisions().doFinally(signal -> sessions.remove(session.id()))));
+	}
+
+	private Publisher<Void> addToSession(HttpServerRequest request, HttpServerResponse response) {
+		if (!isAuthorized(request)) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+		}
+		var session = sessions.get(request.param("sessionId"));
+		if (session == null) {
+			return response.status(HttpResponseStatus.NOT_FOUND).send();
+		}
+		return request.receive().aggregate().asByteArray().flatMap(body -> {
+			AuthorizationSubscription subscription;
+			try {
+				subscription = read(request, body, AuthorizationSubscription.class);
+			} catch (IOException e) {
+				return response.status(HttpResponseStatus.BAD_REQUEST).send().then();
+			}
+			session.add(request.param("subscriptionId"), subscription);
+			return response.status(HttpResponseStatus.NO_CONTENT).send().then();
+		});
+	}
+
+	private Publisher<Void> removeFromSession(HttpServerRequest request, HttpServerResponse response) {
+		if (!isAuthorized(request)) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+		}
+		var session = sessions.get(request.param("sessionId"));
+		if (session == null || !session.remove(request.param("subscriptionId"))) {
+			return response.status(HttpResponseStatus.NOT_FOUND).send();
+		}
+		return response.status(HttpResponseStatus.NO_CONTENT).send();
+	}
+
+	private boolean isAuthorized(HttpServerRequest request) {
+		return expectedAuthorization.equals(request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION));
+	}
+
+	private static <T> T read(HttpServerRequest request, byte[] body, Class<T> type) throws IOException {
+		return WireFormat.ofContentType(request.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE)).mapper()
+				.readValue(body, type);
+	}
+
+	private static Mono<Void> stream(HttpServerRequest request, HttpServerResponse response,
+			Flux<? extends JsonNode> decisions) {
+		var accept = request.requestHeaders().get(HttpHeaderNames.ACCEPT);
+		if (accept != null && accept.contains(EVENT_STREAM)) {
+			return response.header(HttpHeaderNames.CONTENT_TYPE, EVENT_STREAM)
+					.sendString(decisions.map(decision -> "data:" + decision + "\n\n")).then();
+		}
+		var format = WireFormat.negotiate(accept);
+		return response.header(HttpHeaderNames.CONTENT_TYPE, format.mediaType())
+				.sendByteArray(decisions.<byte[]>handle((decision, sink) -> {
+					try {
+						sink.next(format.frame(decision));
+					} catch (IOException e) {
+						sink.error(e);
+					}
+				})).then();
+	}
+
+}
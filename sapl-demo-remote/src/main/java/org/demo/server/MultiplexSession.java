@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.server;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.sapl.api.pdp.AuthorizationDecision;
+import io.sapl.api.pdp.AuthorizationSubscription;
+import io.sapl.api.pdp.PolicyDecisionPoint;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * A multiplexed stream of the {@link LocalPdpServer}. The client opens the
+ * stream once and then adds and removes subscriptions identified by IDs of its
+ * choice. The decisions for all subscriptions of the session are sent over the
+ * one stream, tagged with their subscription ID, like the decisions of a
+ * {@code MultiAuthorizationSubscription}. In contrast to the latter, the set of
+ * subscriptions may change at any time without re-opening the stream.
+ */
+final class MultiplexSession {
+
+	private final String id = UUID.randomUUID().toString();
+
+	private final PolicyDecisionPoint pdp;
+
+	private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+
+	private final Flux<JsonNode> decisions;
+
+	private volatile FluxSink<JsonNode> sink;
+
+	MultiplexSession(PolicyDecisionPoint pdp) {
+		this.pdp = pdp;
+		this.decisions = Flux.<JsonNode>create(newSink -> {
+			sink = newSink;
+			newSink.next(DecisionJson.session(id));
+			newSink.onDispose(this::close);
+		});
+	}
+
+	String id() {
+		return id;
+	}
+
+	/**
+	 * @return the stream, starting with the session ID, followed by the decisions
+	 * of all subscriptions of the session. Cancelling the stream ends the session.
+	 */
+	Flux<JsonNode> decisions() {
+		return decisions;
+	}
+
+	/**
+	 * Adds a subscription to the session, replacing a subscription with the same
+	 * ID. If the evaluation of the subscription fails, INDETERMINATE is sent for
+	 * it, and the other subscriptions of the session continue.
+	 */
+	void add(String subscriptionId, AuthorizationSubscription authzSubscription) {
+		var previous = subscriptions.put(subscriptionId,
+				pdp.decide(authzSubscription).subscribe(
+						decision -> sink.next(DecisionJson.of(subscriptionId, decision)),
+						error -> sink.next(DecisionJson.of(subscriptionId, AuthorizationDecision.INDETERMINATE))));
+		if (previous != null) {
+			previous.dispose();
+		}
+	}
+
+	/**
+	 * @return {@code false}, if the session had no subscription with the ID.
+	 */
+	boolean remove(String subscriptionId) {
+		var subscription = subscriptions.remove(subscriptionId);
+		if (subscription == null) {
+			return false;
+		}
+		subscription.dispose();
+		return true;
+	}
+
+	private void close() {
+		subscriptions.values().forEach(Disposable::dispose);
+		subscriptions.clear();
+	}
+
+}
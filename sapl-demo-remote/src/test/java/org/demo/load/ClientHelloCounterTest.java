@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.load;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ClientHelloCounterTest {
+
+	private static final int HANDSHAKE = 22;
+	private static final int APPLICATION_DATA = 23;
+	private static final int CHANGE_CIPHER_SPEC = 20;
+	private static final int CLIENT_HELLO = 1;
+	private static final int CLIENT_KEY_EXCHANGE = 16;
+
+	@Test
+	public void countsClientHelloInOneChunk() {
+		assertEquals(1, scanInChunks(record(HANDSHAKE, CLIENT_HELLO, 200), Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void ignoresOtherHandshakeMessagesAndRecords() {
+		var stream = concat(record(HANDSHAKE, CLIENT_KEY_EXCHANGE, 70), record(CHANGE_CIPHER_SPEC, 1, 1),
+				record(APPLICATION_DATA, CLIENT_HELLO, 300));
+		assertEquals(0, scanInChunks(stream, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void countsRecordsSplitAtAnyPosition() {
+		var stream = concat(record(HANDSHAKE, CLIENT_HELLO, 100), record(APPLICATION_DATA, CLIENT_HELLO, 50),
+				record(HANDSHAKE, CLIENT_HELLO, 1), record(HANDSHAKE, CLIENT_KEY_EXCHANGE, 3));
+		// chunk sizes of 1 and 2 split every record header
+		for (int chunkSize = 1; chunkSize <= stream.length; chunkSize++) {
+			assertEquals("chunk size " + chunkSize, 2, scanInChunks(stream, chunkSize));
+		}
+	}
+
+	@Test
+	public void countsClientHelloWhenSplitBetweenHeaderAndMessageType() {
+		var hello = record(HANDSHAKE, CLIENT_HELLO, 100);
+		var counter = new AtomicInteger();
+		var scanner = new ClientHelloCounter(counter::incrementAndGet);
+		scanner.scan(Arrays.copyOfRange(hello, 0, 5), 5);
+		scanner.scan(Arrays.copyOfRange(hello, 5, hello.length), hello.length - 5);
+		assertEquals(1, counter.get());
+	}
+
+	@Test
+	public void staysInSyncAfterEmptyRecords() {
+		var stream = concat(record(APPLICATION_DATA, 0, 0), record(HANDSHAKE, 0, 0),
+				record(HANDSHAKE, CLIENT_HELLO, 10));
+		assertEquals(1, scanInChunks(stream, 3));
+	}
+
+	private static int scanInChunks(byte[] stream, int chunkSize) {
+		var counter = new AtomicInteger();
+		var scanner = new ClientHelloCounter(counter::incrementAndGet);
+		for (int start = 0; start < stream.length; start += chunkSize) {
+			// scan from a buffer larger than the chunk, like the proxy's read buffer
+			var buffer = new byte[chunkSize + 7];
+			int length = Math.min(chunkSize, stream.length - start);
+			System.arraycopy(stream, start, buffer, 0, length);
+			scanner.scan(buffer, length);
+		}
+		return counter.get();
+	}
+
+	/**
+	 * @return a TLS record of the given content type, whose payload of the given
+	 * length starts with the given byte.
+	 */
+	private static byte[] record(int contentType, int firstByte, int payloadLength) {
+		var record = new byte[5 + payloadLength];
+		record[0] = (byte) contentType;
+		record[1] = 3;
+		record[2] = 3;
+		record[3] = (byte) (payloadLength >> 8);
+		record[4] = (byte) payloadLength;
+		if (payloadLength > 0) {
+			record[5] = (byte) firstByte;
+			Arrays.fill(record, 6, record.length, (byte) HANDSHAKE);
+		}
+		return record;
+	}
+
+	private static byte[] concat(byte[]... records) {
+		var stream = new ByteArrayOutputStream();
+		for (var record : records) {
+			stream.writeBytes(record);
+		}
+		return stream.toByteArray();
+	}
+
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.wire;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The encodings of subscriptions and decisions on the wire between the demo
+ * clients and the {@code LocalPdpServer}.
+ * 
+ * JSON is the format of the authorization server's HTTP API. Streams of JSON
+ * values are newline-delimited. The binary formats CBOR and Smile are more
+ * compact and cheaper to generate and parse, in particular for decisions with
+ * large resources. As binary values may contain any byte, streams of binary
+ * values are framed by a four-byte big-endian length prefix.
+ * 
+ * The client lists the formats it supports in the {@code Accept} header in
+ * order of preference, and the server answers with the one it supports with
+ * the highest quality value, the first of them on ties, stating it in the
+ * {@code Content-Type} header. Formats with a quality value of 0 are never
+ * chosen. A server which does not know
+ * the binary formats answers with JSON, so clients fall back to JSON by
+ * always accepting it last.
+ */
+public enum WireFormat {
+
+	JSON("application/x-ndjson", new ObjectMapper()),
+
+	CBOR("application/cbor", new ObjectMapper(new CBORFactory())),
+
+	SMILE("application/x-jackson-smile", new ObjectMapper(new SmileFactory()));
+
+	private static final int LENGTH_PREFIX_SIZE = Integer.BYTES;
+
+	private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+	private final String mediaType;
+
+	private final ObjectMapper mapper;
+
+	WireFormat(String mediaType, ObjectMapper mapper) {
+		this.mediaType = mediaType;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * @return the media type of a stream of values in this format.
+	 */
+	public String mediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * @return a mapper reading and writing single values in this format.
+	 */
+	public ObjectMapper mapper() {
+		return mapper;
+	}
+
+	/**
+	 * Encodes a value as an element of a stream, i.e., followed by a newline
+	 * for JSON or preceded by its length for the binary formats.
+	 * @param value the value.
+	 * @return the frame.
+	 * @throws IOException if the value cannot be encoded.
+	 */
+	public byte[] frame(Object value) throws IOException {
+		var bytes = mapper.writeValueAsBytes(value);
+		if (this == JSON) {
+			var frame = Arrays.copyOf(bytes, bytes.length + 1);
+			frame[bytes.length] = '\n';
+			return frame;
+		}
+		return ByteBuffer.allocate(LENGTH_PREFIX_SIZE + bytes.length).putInt(bytes.length).put(bytes).array();
+	}
+
+	/**
+	 * @param value the encoded value without framing.
+	 * @return the decoded value.
+	 * @throws IOException if the value is malformed.
+	 */
+	public JsonNode decode(byte[] value) throws IOException {
+		return mapper.readTree(value);
+	}
+
+	/**
+	 * @return a new splitter for the chunks of one stream in this format.
+	 */
+	public FrameSplitter newSplitter() {
+		return this == JSON ? new LineSplitter() : new LengthPrefixSplitter();
+	}
+
+	/**
+	 * @param preferred the preferred format.
+	 * @return the value of an {@code Accept} header preferring the given format,
+	 * and falling back to JSON.
+	 */
+	public static String accept(WireFormat preferred) {
+		return preferred == JSON ? JSON.mediaType : preferred.mediaType + ", " + JSON.mediaType;
+	}
+
+	/**
+	 * @param accept the {@code Accept} header of a request, may be {@code null}.
+	 * @return the format in the header with the highest quality value, the first
+	 * one on ties, or JSON if it names none with a quality value above 0.
+	 */
+	public static WireFormat negotiate(String accept) {
+		var negotiated = JSON;
+		var bestQuality = 0.0D;
+		if (accept != null) {
+			for (var mediaRange : accept.split(",")) {
+				var format = forMediaType(mediaRange);
+				var quality = quality(mediaRange);
+				if (format != null && quality > bestQuality) {
+					negotiated = format;
+					bestQuality = quality;
+				}
+			}
+		}
+		return negotiated;
+	}
+
+	/**
+	 * @param contentType the {@code Content-Type} header, may be {@code null}.
+	 * @return the format of the content, JSON if the header is absent or names an
+	 * unknown type.
+	 */
+	public static WireFormat ofContentType(String contentType) {
+		var format = contentType == null ? null : forMediaType(contentType);
+		return format == null ? JSON : format;
+	}
+
+	private static double quality(String mediaRange) {
+		var parameters = mediaRange.split(";");
+		for (int i = 1; i < parameters.length; i++) {
+			var parameter = parameters[i].split("=", 2);
+			if (parameter.length == 2 && "q".equalsIgnoreCase(parameter[0].trim())) {
+				try {
+					return Double.parseDouble(parameter[1].trim());
+				} catch (NumberFormatException e) {
+					// a malformed quality value excludes the media range
+					return 0.0D;
+				}
+			}
+		}
+		return 1.0D;
+	}
+
+	private static WireFormat forMediaType(String mediaRange) {
+		var type = mediaRange.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+		if ("application/json".equals(type)) {
+			return JSON;
+		}
+		for (var format : values()) {
+			if (format.mediaType.equals(type)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Splits the chunks of a stream into the encoded values, keeping incomplete
+	 * values until the rest arrives.
+	 */
+	public interface FrameSplitter {
+
+		/**
+		 * @param chunk the next chunk of the stream.
+		 * @return the values completed by the chunk, without framing.
+		 * @throws IllegalStateException if a length prefix is negative or exceeds
+		 * 16 MiB, i.e., the stream is corrupt.
+		 */
+		List<byte[]> split(byte[] chunk);
+
+	}
+
+	private static final class LineSplitter implements FrameSplitter {
+
+		private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+		@Override
+		public List<byte[]> split(byte[] chunk) {
+			List<byte[]> values = new ArrayList<>();
+			int start = 0;
+			for (int i = 0; i < chunk.length; i++) {
+				if (chunk[i] == '\n') {
+					pending.write(chunk, start, i - start);
+					if (pending.size() > 0) {
+						values.add(pending.toByteArray());
+					}
+					pending.reset();
+					start = i + 1;
+				}
+			}
+			pending.write(chunk, start, chunk.length - start);
+			return values;
+		}
+
+	}
+
+	/**
+	 * Copies every byte once, into the prefix or into the value it belongs to, so
+	 * a value arriving in many chunks is not re-assembled over and over again.
+	 */
+	private static final class LengthPrefixSplitter implements FrameSplitter {
+
+		private final ByteBuffer prefix = ByteBuffer.allocate(LENGTH_PREFIX_SIZE);
+
+		private ByteBuffer value;
+
+		@Override
+		public List<byte[]> split(byte[] chunk) {
+			List<byte[]> values = new ArrayList<>();
+			int position = 0;
+			while (position < chunk.length) {
+				if (value == null) {
+					int length = Math.min(prefix.remaining(), chunk.length - position);
+					prefix.put(chunk, position, length);
+					position += length;
+					if (prefix.hasRemaining()) {
+						break;
+					}
+					value = ByteBuffer.allocate(checkedLength(prefix.getInt(0)));
+					prefix.clear();
+				}
+				int length = Math.min(value.remaining(), chunk.length - position);
+				value.put(chunk, position, length);
+				position += length;
+				if (!value.hasRemaining()) {
+					values.add(value.array());
+					value = null;
+				}
+			}
+			return values;
+		}
+
+		private static int checkedLength(int length) {
+			if (length < 0 || length > MAX_FRAME_SIZE) {
+				throw new IllegalStateException("Invalid frame length " + length + ", the stream is corrupt");
+			}
+			return length;
+		}
+
+	}
+
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2017-2018 Dominic Heutelbeck (dheutelbeck@ftk.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.demo.wire;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+public class WireFormatTest {
+
+	private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+	@Test
+	public void splitsFramesAcrossChunksInAllFormats() throws IOException {
+		var values = List.of(value(0), value(1), value(2));
+		for (var format : WireFormat.values()) {
+			var stream = stream(format, values);
+			for (int chunkSize = 1; chunkSize <= stream.length; chunkSize++) {
+				assertEquals(format + " with chunk size " + chunkSize, values, decode(format, stream, chunkSize));
+			}
+		}
+	}
+
+	@Test
+	public void keepsIncompleteFrameUntilItIsComplete() throws IOException {
+		for (var format : WireFormat.values()) {
+			var frame = format.frame(value(1));
+			var splitter = format.newSplitter();
+			assertTrue(splitter.split(Arrays.copyOfRange(frame, 0, frame.length - 1)).isEmpty());
+			var values = splitter.split(Arrays.copyOfRange(frame, frame.length - 1, frame.length));
+			assertEquals(1, values.size());
+			assertEquals(value(1), format.decode(values.get(0)));
+		}
+	}
+
+	@Test
+	public void binaryFramesMayContainNewlines() throws IOException {
+		var value = JSON.objectNode().put("text", "line\nbreak").put("number", 10);
+		for (var format : List.of(WireFormat.CBOR, WireFormat.SMILE)) {
+			assertEquals(List.of(value), decode(format, stream(format, List.of(value)), 3));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsNegativeFrameLength() {
+		WireFormat.CBOR.newSplitter().split(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFE, 1 });
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsOversizedFrameLength() {
+		var splitter = WireFormat.SMILE.newSplitter();
+		splitter.split(new byte[] { 0x7F, 0 });
+		splitter.split(new byte[] { 0, 0 });
+	}
+
+	@Test
+	public void splitsEmptyFrames() {
+		var values = WireFormat.CBOR.newSplitter().split(new byte[] { 0, 0, 0, 0, 0, 0, 0, 1, 42 });
+		assertEquals(2, values.size());
+		assertEquals(0, values.get(0).length);
+		assertArrayEquals(new byte[] { 42 }, values.get(1));
+	}
+
+	@Test
+	public void negotiatesFirstSupportedFormat() {
+		assertEquals(WireFormat.CBOR, WireFormat.negotiate("application/cbor, application/x-ndjson"));
+		assertEquals(WireFormat.SMILE, WireFormat.negotiate("text/html, application/x-jackson-smile"));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/x-ndjson, application/cbor"));
+	}
+
+	@Test
+	public void negotiatesMediaTypesWithParametersAndCase() {
+		assertEquals(WireFormat.CBOR, WireFormat.negotiate("Application/CBOR;q=0.9, application/x-ndjson;q=0.5"));
+		assertEquals(WireFormat.SMILE, WireFormat.negotiate(" application/x-jackson-smile ; q=1"));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/json; charset=UTF-8"));
+	}
+
+	@Test
+	public void negotiatesFormatWithHighestQuality() {
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/cbor;q=0.5, application/x-ndjson"));
+		assertEquals(WireFormat.SMILE,
+				WireFormat.negotiate("application/cbor;q=0.8, application/x-jackson-smile;Q=0.9"));
+		assertEquals(WireFormat.CBOR,
+				WireFormat.negotiate("application/cbor;q=0.7, application/x-jackson-smile;q=0.7"));
+	}
+
+	@Test
+	public void neverNegotiatesFormatWithQualityZero() {
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/cbor;q=0, application/x-ndjson"));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/cbor;q=0"));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/cbor;q=invalid"));
+	}
+
+	@Test
+	public void fallsBackToJsonWithoutSupportedFormat() {
+		assertEquals(WireFormat.JSON, WireFormat.negotiate(null));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate(""));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("*/*"));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate("application/xml, application/protobuf"));
+	}
+
+	@Test
+	public void readsFormatOfContentType() {
+		assertEquals(WireFormat.CBOR, WireFormat.ofContentType("application/cbor"));
+		assertEquals(WireFormat.JSON, WireFormat.ofContentType("application/json;charset=UTF-8"));
+		assertEquals(WireFormat.JSON, WireFormat.ofContentType("text/event-stream"));
+		assertEquals(WireFormat.JSON, WireFormat.ofContentType(null));
+	}
+
+	@Test
+	public void acceptsPreferredFormatBeforeJson() {
+		assertEquals(WireFormat.SMILE, WireFormat.negotiate(WireFormat.accept(WireFormat.SMILE)));
+		assertEquals(WireFormat.JSON, WireFormat.negotiate(WireFormat.accept(WireFormat.JSON)));
+	}
+
+	private static JsonNode value(int i) {
+		var value = JSON.objectNode();
+		value.put("authorizationSubscriptionId", Integer.toString(i));
+		value.set("authorizationDecision", JSON.objectNode().put("decision", i % 2 == 0 ? "PERMIT" : "DENY")
+				.set("resource", JSON.arrayNode().add("x".repeat(i * 40)).add(i)));
+		return value;
+	}
+
+	private static byte[] stream(WireFormat format, List<JsonNode> values) throws IOException {
+		var stream = new ByteArrayOutputStream();
+		for (var value : values) {
+			stream.writeBytes(format.frame(value));
+		}
+		return stream.toByteArray();
+	}
+
+	private static List<JsonNode> decode(WireFormat format, byte[] stream, int chunkSize) throws IOException {
+		var splitter = format.newSplitter();
+		List<JsonNode> values = new ArrayList<>();
+		for (int start = 0; start < stream.length; start += chunkSize) {
+			var chunk = Arrays.copyOfRange(stream, start, Math.min(stream.length, start + chunkSize));
+			for (var frame : splitter.split(chunk)) {
+				values.add(format.decode(frame));
+			}
+		}
+		return values;
+	}
+
+}